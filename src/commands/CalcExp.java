@@ -0,0 +1,449 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+package commands;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import commands.BooleanExp.Comp;
+import commands.DoubleExp.Oper;
+
+// An infix expression over numbers, variables and Math functions, parsed once into a tree evaluated on primitive doubles.
+// Operators bind as usual: comparisons loosest, then + and -, then *, / and %, then unary minus, then ** and /* tightest.
+public class CalcExp
+{
+	public static final int MAX_TOKENS = 32;
+	private static final HashMap<String, MethodHandle> FUNCS = new HashMap<>();
+	static
+	{
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		for (Method m : Math.class.getMethods())
+		{
+			if (!Modifier.isStatic(m.getModifiers()) || m.getReturnType() != double.class || m.getParameterCount() > 3)
+				continue;
+			boolean doubles = true;
+			for (Class<?> param : m.getParameterTypes())
+				doubles &= param == double.class;
+			if (!doubles)
+				continue;
+			try
+			{
+				FUNCS.put(m.getName() + "/" + m.getParameterCount(), lookup.unreflect(m));
+			}
+			catch (IllegalAccessException e)
+			{}
+		}
+	}
+	
+	public final String text;
+	public final boolean isComparison;
+	private final Expr root;
+	
+	private CalcExp(String text, Expr root)
+	{
+		this.text = text;
+		this.root = root;
+		isComparison = root instanceof Compare;
+	}
+	
+	public double eval(Scajl ctx)
+	{
+		return root.eval(ctx);
+	}
+	
+	// Returns the result as a Scajl value, which is a boolean if the whole expression is a comparison.
+	public ScajlVariable value(Scajl ctx)
+	{
+		double val = root.eval(ctx);
+		return isComparison ? Scajl.boolOf(val != 0) : Scajl.numOf(val);
+	}
+	
+	public static CalcExp parse(String text)
+	{
+		Parser parser = new Parser(text);
+		Expr root = parser.comparison();
+		if (parser.at < text.length())
+			throw parser.fail("Unexpected '" + text.substring(parser.at) + "'");
+		return new CalcExp(text, root);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return text;
+	}
+	
+	//////////////////////
+	
+	private static class Parser
+	{
+		private static final String[] SYMBOLS = new String[] { "**", "/*", "<=", ">=", "==", "!=", "+", "-", "*", "/", "%", "<", ">", "=", "!", "(", ")", "," };
+		private final String text;
+		private int at = 0;
+		
+		private Parser(String text)
+		{
+			this.text = text;
+		}
+		
+		private Expr comparison()
+		{
+			Expr a = sum();
+			String sym = peekSymbol();
+			Comp comp = sym == null ? null : Comp.parse(sym);
+			if (comp == null)
+				return a;
+			at += sym.length();
+			return new Compare(comp, a, sum()).fold();
+		}
+		
+		private Expr sum()
+		{
+			Expr a = term();
+			for (String sym = peekSymbol(); "+".equals(sym) || "-".equals(sym); sym = peekSymbol())
+			{
+				at += sym.length();
+				a = new Operate(Oper.parse(sym), a, term()).fold();
+			}
+			return a;
+		}
+		
+		private Expr term()
+		{
+			Expr a = unary();
+			for (String sym = peekSymbol(); "*".equals(sym) || "/".equals(sym) || "%".equals(sym); sym = peekSymbol())
+			{
+				at += sym.length();
+				a = new Operate(Oper.parse(sym), a, unary()).fold();
+			}
+			return a;
+		}
+		
+		private Expr unary()
+		{
+			String sym = peekSymbol();
+			if ("-".equals(sym))
+			{
+				at++;
+				return new Negate(unary()).fold();
+			}
+			if ("+".equals(sym))
+			{
+				at++;
+				return unary();
+			}
+			return power();
+		}
+		
+		private Expr power()
+		{
+			Expr a = primary();
+			String sym = peekSymbol();
+			if (!"**".equals(sym) && !"/*".equals(sym))
+				return a;
+			at += sym.length();
+			return new Operate(Oper.parse(sym), a, unary()).fold();
+		}
+		
+		private Expr primary()
+		{
+			skipSpace();
+			if (at >= text.length())
+				throw fail("Expression ends early");
+			char ch = text.charAt(at);
+			if (ch == '(')
+			{
+				at++;
+				Expr in = comparison();
+				expect(")");
+				return in;
+			}
+			if (Character.isDigit(ch) || ch == '.')
+				return number();
+			if (!isNameChar(ch))
+				throw fail("Unexpected '" + ch + "'");
+			int start = at;
+			while (at < text.length() && (isNameChar(text.charAt(at)) || text.charAt(at) == Scajl.ARR_ACCESS))
+				at++;
+			String name = text.substring(start, at);
+			if (!"(".equals(peekSymbol()))
+				return new Var(name);
+			at++;
+			ArrayList<Expr> args = new ArrayList<>();
+			if (!")".equals(peekSymbol()))
+			{
+				args.add(comparison());
+				while (",".equals(peekSymbol()))
+				{
+					at++;
+					args.add(comparison());
+				}
+			}
+			expect(")");
+			MethodHandle func = FUNCS.get(name + "/" + args.size());
+			if (func == null)
+				throw fail("No Math function '" + name + "' taking " + args.size() + " numbers");
+			return new Call(name, func, args.toArray(new Expr[args.size()])).fold();
+		}
+		
+		private Expr number()
+		{
+			int start = at;
+			while (at < text.length() && (Character.isDigit(text.charAt(at)) || text.charAt(at) == '.'))
+				at++;
+			if (at < text.length() && (text.charAt(at) == 'e' || text.charAt(at) == 'E'))
+			{
+				int exp = at + 1;
+				if (exp < text.length() && (text.charAt(exp) == '+' || text.charAt(exp) == '-'))
+					exp++;
+				if (exp < text.length() && Character.isDigit(text.charAt(exp)))
+				{
+					at = exp;
+					while (at < text.length() && Character.isDigit(text.charAt(at)))
+						at++;
+				}
+			}
+			Double num = CmdArg.dumbParse(text.substring(start, at));
+			if (num == null)
+				throw fail("Invalid number '" + text.substring(start, at) + "'");
+			return new Num(num);
+		}
+		
+		private void expect(String sym)
+		{
+			if (!sym.equals(peekSymbol()))
+				throw fail("Expected '" + sym + "'");
+			at += sym.length();
+		}
+		
+		// Skips spaces, and returns the symbol there, or null if there isn't one.
+		private String peekSymbol()
+		{
+			skipSpace();
+			for (String sym : SYMBOLS)
+				if (text.startsWith(sym, at))
+					return sym;
+			return null;
+		}
+		
+		private void skipSpace()
+		{
+			while (at < text.length() && Character.isWhitespace(text.charAt(at)))
+				at++;
+		}
+		
+		private static boolean isNameChar(char ch)
+		{
+			return Character.isLetterOrDigit(ch) || ch == '_';
+		}
+		
+		private Scajl.ScajlException fail(String why)
+		{
+			return new Scajl.ScajlException(why + " at character " + (at + 1) + " of '" + text + "'");
+		}
+	}
+	
+	//////////////////////
+	
+	private static abstract class Expr
+	{
+		abstract double eval(Scajl ctx);
+		
+		// Parts of nothing but numbers are worked out as they are parsed.
+		Expr fold()
+		{
+			return constant() ? new Num(eval(null)) : this;
+		}
+		
+		boolean constant()
+		{
+			return false;
+		}
+	}
+	
+	private static class Num extends Expr
+	{
+		private final double val;
+		
+		private Num(double val)
+		{
+			this.val = val;
+		}
+		
+		@Override
+		double eval(Scajl ctx)
+		{
+			return val;
+		}
+		
+		@Override
+		boolean constant()
+		{
+			return true;
+		}
+	}
+	
+	private static class Var extends Expr
+	{
+		private final String name;
+		private final boolean plain;
+		
+		private Var(String name)
+		{
+			this.name = name;
+			plain = Node.isPlainName(name);
+		}
+		
+		@Override
+		double eval(Scajl ctx)
+		{
+			ScajlVariable var = plain ? ctx.scope.get(name) : ctx.getVar(name, false, null);
+			Double num = var == null ? null : CmdArg.DOUBLE.parse(var, ctx);
+			if (num != null)
+				return num;
+			ctx.parseExcept("Invalid token resolution", "Expected a number", "'" + name + "' was '" + (var == null ? name : var.val(ctx)) + "'");
+			return Double.NaN;
+		}
+	}
+	
+	private static class Negate extends Expr
+	{
+		private final Expr a;
+		
+		private Negate(Expr a)
+		{
+			this.a = a;
+		}
+		
+		@Override
+		double eval(Scajl ctx)
+		{
+			return -a.eval(ctx);
+		}
+		
+		@Override
+		boolean constant()
+		{
+			return a.constant();
+		}
+	}
+	
+	private static class Operate extends Expr
+	{
+		private final Oper op;
+		private final Expr a, b;
+		
+		private Operate(Oper op, Expr a, Expr b)
+		{
+			this.op = op;
+			this.a = a;
+			this.b = b;
+		}
+		
+		@Override
+		double eval(Scajl ctx)
+		{
+			return op.eval(a.eval(ctx), b.eval(ctx));
+		}
+		
+		@Override
+		boolean constant()
+		{
+			return a.constant() && b.constant();
+		}
+	}
+	
+	private static class Compare extends Expr
+	{
+		private final Comp comp;
+		private final Expr a, b;
+		
+		private Compare(Comp comp, Expr a, Expr b)
+		{
+			this.comp = comp;
+			this.a = a;
+			this.b = b;
+		}
+		
+		@Override
+		double eval(Scajl ctx)
+		{
+			return comp.eval(a.eval(ctx), b.eval(ctx)) ? 1 : 0;
+		}
+		
+		// Kept whole, so that the expression still reads as a comparison.
+		@Override
+		Expr fold()
+		{
+			return this;
+		}
+	}
+	
+	private static class Call extends Expr
+	{
+		private final String name;
+		private final MethodHandle func;
+		private final Expr[] args;
+		
+		private Call(String name, MethodHandle func, Expr[] args)
+		{
+			this.name = name;
+			this.func = func;
+			this.args = args;
+		}
+		
+		@Override
+		double eval(Scajl ctx)
+		{
+			// Arguments are evaluated first, so their own errors are reported as they are rather than as the function's.
+			double a = args.length > 0 ? args[0].eval(ctx) : 0, b = args.length > 1 ? args[1].eval(ctx) : 0, c = args.length > 2 ? args[2].eval(ctx) : 0;
+			try
+			{
+				switch (args.length)
+				{
+					case 0:
+						return (double) func.invokeExact();
+					case 1:
+						return (double) func.invokeExact(a);
+					case 2:
+						return (double) func.invokeExact(a, b);
+					default:
+						return (double) func.invokeExact(a, b, c);
+				}
+			}
+			catch (Throwable e)
+			{
+				throw new Scajl.ScajlException("Math function '" + name + "' failed: " + e);
+			}
+		}
+		
+		// Functions like random() give something new every time, so only those with arguments are folded.
+		@Override
+		boolean constant()
+		{
+			if (args.length == 0)
+				return false;
+			for (Expr arg : args)
+				if (!arg.constant())
+					return false;
+			return true;
+		}
+	}
+}
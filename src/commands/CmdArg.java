@@ -30,9 +30,11 @@ import java.util.function.IntPredicate;
 import commands.BooleanExp.Comp;
 import commands.DoubleExp.Oper;
 import commands.ScajlVariable.SVArray;
+import commands.ScajlVariable.SVBuffer;
 import commands.ScajlVariable.SVExec;
 import commands.ScajlVariable.SVJavObj;
 import commands.ScajlVariable.SVTokGroup;
+import commands.ScajlVariable.SVVal;
 import utilities.ArrayUtils;
 import utilities.MapUtils;
 import utilities.StringUtils;
@@ -75,6 +77,7 @@ public abstract class CmdArg<T>
 			mp.put(arg.tokenCount(), arg);
 			ARGS.put(toClass, mp);
 		}
+		RegistryVersion.changed();
 		return arg;
 	}
 	
@@ -332,7 +335,16 @@ public abstract class CmdArg<T>
 		public Long parse(ScajlVariable[] vars, int off, Scajl ctx)
 		{
 			Double d = DOUBLE.parse(vars, off, ctx);
-			return d == null ? null : (long) (double) d;
+			if (d == null)
+				return null;
+			// Past 2^53 a double skips whole numbers, so those are read from their text when it's written as one.
+			if (Math.abs(d) >= 0x1p53)
+			{
+				String text = vars[off].val(ctx).trim();
+				if (isLong(text))
+					return Long.parseLong(text);
+			}
+			return (long) (double) d;
 		}
 	}.reg();
 	
@@ -426,6 +438,8 @@ public abstract class CmdArg<T>
 		@Override
 		public Double parse(ScajlVariable[] vars, int off, Scajl ctx)
 		{
+			if (vars[off] instanceof SVVal)
+				return ((SVVal) vars[off]).num();
 			return dumbParse(vars[off].val(ctx));
 		}
 	}.reg();
@@ -450,6 +464,51 @@ public abstract class CmdArg<T>
 		}
 	}.reg();
 	
+	// Expressions are written with spaces wherever, so there is one of these for each token count they might be split into.
+	public static final CmdArg<CalcExp> CALC_EXP = calcExp(1);
+	static
+	{
+		for (int i = 2; i <= CalcExp.MAX_TOKENS; i++)
+			calcExp(i);
+	}
+	private static CmdArg<CalcExp> calcExp(int count)
+	{
+		return new CmdArg<CalcExp>("Expression", CalcExp.class)
+		{
+			@Override
+			public boolean rawToken(int ind)
+			{
+				return true;
+			}
+			
+			@Override
+			public int tokenCount()
+			{
+				return count;
+			}
+			
+			@Override
+			public CalcExp parse(ScajlVariable[] vars, int off, Scajl ctx)
+			{
+				String text = vars[off].val(ctx);
+				for (int i = 1; i < count; i++)
+					text += " " + vars[off + i].val(ctx);
+				for (int i = 0; i < count; i++)
+					if (vars[off + i].val(ctx).isEmpty())
+						ctx.parseExcept("Invalid expression", text, "A lone '" + Scajl.UNRAW + "' is read as a modifier, so write modulo against its left side, as in 'a" + Scajl.UNRAW + "b'");
+				try
+				{
+					return CalcExp.parse(text);
+				}
+				catch (Scajl.ScajlException e)
+				{
+					ctx.parseExcept("Invalid expression", text, e.getMessage());
+					return null;
+				}
+			}
+		}.reg();
+	}
+	
 	public static final CmdArg<Float> FLOAT = new CmdArg<Float>("Float", Float.class)
 	{	
 		@Override
@@ -542,6 +601,21 @@ public abstract class CmdArg<T>
 		}
 	}.reg();
 	
+	public static final CmdArg<SVBuffer> SVBUFFER = new CmdArg<SVBuffer>("Buffer", SVBuffer.class)
+	{
+		@Override
+		public SVBuffer parse(ScajlVariable[] vars, int off, Scajl ctx)
+		{
+			return vars[off] instanceof SVBuffer ? (SVBuffer) vars[off] : null;
+		}
+
+		@Override
+		public ScajlVariable unparse(SVBuffer obj)
+		{
+			return obj;
+		}
+	}.reg();
+	
 	public static final CmdArg<SVJavObj> SVJAVOBJ = new CmdArg<SVJavObj>("Object", SVJavObj.class)
 	{
 		@Override
@@ -900,6 +974,7 @@ public abstract class CmdArg<T>
 	}.reg();
 	
 	public static final CmdArg<int[]> INT_ARR = arrayOfPrimitives(int[].class);
+	public static final CmdArg<long[]> LONG_ARR = arrayOfPrimitives(long[].class);
 	public static final CmdArg<short[]> SHORT_ARR = arrayOfPrimitives(short[].class);
 	public static final CmdArg<byte[]> BYTE_ARR = arrayOfPrimitives(byte[].class);
 	public static final CmdArg<double[]> DOUB_ARR = arrayOfPrimitives(double[].class);
@@ -1157,9 +1232,34 @@ CmdArg.funcInterfaceOf(Pos3dVal.class, (matching) -> (pos) -> (double) matching.
 			@Override
 			public X parse(ScajlVariable[] vars, int off, Scajl ctx)
 			{
+				if (vars[off] instanceof SVBuffer)
+					return (X) ((SVBuffer) vars[off]).toArray(prim);
 				if (!(vars[off] instanceof SVArray))
 					return null;
 				SVArray array = (SVArray) vars[off];
+				// Number Arrays are always handed over as their own double[], so writes to it are seen by the script whatever they were filled with.
+				if (prim == double.class)
+				{
+					double[] doubles = array.doubles();
+					if (doubles != null)
+						return (X) doubles;
+				}
+				Object prims = array.primitives();
+				if (prims != null)
+				{
+					if (prims.getClass() == primArray)
+						return (X) prims;
+					if (prims instanceof long[] && prim == int.class)
+					{
+						long[] longs = (long[]) prims;
+						int[] ints = new int[longs.length];
+						int i = 0;
+						for (; i < longs.length && (ints[i] = (int) longs[i]) == longs[i]; i++);
+						// Out of range values are left to the usual parsing, to report them.
+						if (i == longs.length)
+							return (X) ints;
+					}
+				}
 				ScajlVariable[] elements = array.getArray();
 				X arr = (X) Array.newInstance(prim, elements.length);
 				for (int i = 0; i < elements.length; i++)
@@ -1175,6 +1275,20 @@ CmdArg.funcInterfaceOf(Pos3dVal.class, (matching) -> (pos) -> (double) matching.
 			@Override
 			public ScajlVariable unparse(X obj)
 			{
+				if (obj instanceof double[])
+					return new SVArray(((double[]) obj).clone(), null);
+				if (obj instanceof long[])
+					return new SVArray(((long[]) obj).clone(), null);
+				if (obj instanceof boolean[])
+					return new SVArray(((boolean[]) obj).clone(), null);
+				if (obj instanceof int[])
+				{
+					int[] ints = (int[]) obj;
+					long[] longs = new long[ints.length];
+					for (int i = 0; i < ints.length; i++)
+						longs[i] = ints[i];
+					return new SVArray(longs, null);
+				}
 				int len = Array.getLength(obj);
 				ScajlVariable[] elements = new ScajlVariable[len];
 				for (int i = 0; i < len; i++)
@@ -1251,13 +1365,91 @@ CmdArg.funcInterfaceOf(Pos3dVal.class, (matching) -> (pos) -> (double) matching.
 	
 	public static Double dumbParse(String input)
 	{
-		try
-		{
-			return Double.parseDouble(input);
-		}
-		catch (NumberFormatException e)
-		{}
-		return null;
+		return isNumber(input) ? Double.parseDouble(input) : null;
+	}
+	
+	// Whether Double.parseDouble would accept the input, worked out without letting it throw. Most tokens are names, and
+	// those are turned away by their first character.
+	public static boolean isNumber(String input)
+	{
+		int start = 0, end = input.length();
+		while (start < end && input.charAt(start) <= ' ')
+			start++;
+		while (end > start && input.charAt(end - 1) <= ' ')
+			end--;
+		if (start < end && (input.charAt(start) == '+' || input.charAt(start) == '-'))
+			start++;
+		if (start == end)
+			return false;
+		char first = input.charAt(start);
+		if (first == 'N')
+			return end - start == 3 && input.startsWith("NaN", start);
+		if (first == 'I')
+			return end - start == 8 && input.startsWith("Infinity", start);
+		if (first == '0' && start + 1 < end && (input.charAt(start + 1) == 'x' || input.charAt(start + 1) == 'X'))
+			return isHexNumber(input, start + 2, end);
+		int at = digits(input, start, end);
+		int count = at - start;
+		if (at < end && input.charAt(at) == '.')
+		{
+			int frac = digits(input, at + 1, end);
+			count += frac - at - 1;
+			at = frac;
+		}
+		if (count == 0)
+			return false;
+		if (at < end && (input.charAt(at) == 'e' || input.charAt(at) == 'E'))
+			at = exponent(input, at + 1, end);
+		return at != -1 && isNumberEnd(input, at, end);
+	}
+	
+	// Whether Long.parseLong would accept the input, worked out without letting it throw.
+	public static boolean isLong(String input)
+	{
+		int start = input.startsWith("-") || input.startsWith("+") ? 1 : 0;
+		int len = input.length() - start;
+		if (len < 1 || len > 19 || digits(input, start, input.length()) != input.length())
+			return false;
+		return len < 19 || input.substring(start).compareTo(input.startsWith("-") ? "9223372036854775808" : "9223372036854775807") <= 0;
+	}
+	
+	private static boolean isHexNumber(String input, int at, int end)
+	{
+		int count = 0;
+		for (; at < end && Character.digit(input.charAt(at), 16) != -1 && input.charAt(at) < 128; at++)
+			count++;
+		if (at < end && input.charAt(at) == '.')
+			for (at++; at < end && Character.digit(input.charAt(at), 16) != -1 && input.charAt(at) < 128; at++)
+				count++;
+		// Hexadecimal numbers always need their binary exponent.
+		if (count == 0 || at == end || input.charAt(at) != 'p' && input.charAt(at) != 'P')
+			return false;
+		at = exponent(input, at + 1, end);
+		return at != -1 && isNumberEnd(input, at, end);
+	}
+	
+	// Returns the end of a signed exponent starting at the index, or -1 if there are no digits.
+	private static int exponent(String input, int at, int end)
+	{
+		if (at < end && (input.charAt(at) == '+' || input.charAt(at) == '-'))
+			at++;
+		int to = digits(input, at, end);
+		return to == at ? -1 : to;
+	}
+	
+	private static int digits(String input, int at, int end)
+	{
+		while (at < end && input.charAt(at) >= '0' && input.charAt(at) <= '9')
+			at++;
+		return at;
+	}
+	
+	// Numbers may end with a float or double suffix.
+	private static boolean isNumberEnd(String input, int at, int end)
+	{
+		if (at < end && "fFdD".indexOf(input.charAt(at)) != -1)
+			at++;
+		return at == end;
 	}
 	
 	public static Boolean dumbParseB(String input)
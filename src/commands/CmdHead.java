@@ -17,17 +17,11 @@
 package commands;
 
 import java.util.ArrayList;
-import java.util.regex.Pattern;
 
-import commands.ParseTracker.BoxTracker;
-import commands.ParseTracker.DelimTracker;
 import utilities.StringUtils;
 
 public class CmdHead
 {
-	private static final DelimTracker QTRACK = new DelimTracker(Scajl.STRING_CHAR, Scajl.ESCAPE_CHAR);
-	private static final BoxTracker CURLTRACK = new BoxTracker(Scajl.SCOPE_S, Scajl.SCOPE_E, Scajl.ESCAPE_CHAR);
-	
 	public final String inlineIf, inlineFor, inlineWhile, name, input;
 	public final String[] storing, parentPath;
 	public final boolean isInlineIf, isInlineElse, isInlineFor, isInlineWhile, printHelp, isMemberCmd;
@@ -82,32 +76,27 @@ public class CmdHead
 		isMemberCmd = parentPath.length > 1;
 	}
 	
-	private static final Pattern PATH_BREAKER = Pattern.compile("[" + Pattern.quote(Scajl.MEMBER_ACCESS) + "\\s]");
 	private static String[] getParentPath(String preName)
 	{
-		QTRACK.reset();
-		CURLTRACK.reset();
-		
 		ArrayList<String> out = new ArrayList<>();
 		
-		String building = "";
-		for (int i = 0; i < preName.length(); i++)
+		char[] chars = preName.toCharArray();
+		Lexer lex = new Lexer(chars);
+		int building = 0;
+		while (lex.hasNext())
 		{
-			char parse = preName.charAt(i);
-			
-			QTRACK.track(parse);
-			CURLTRACK.track(parse, QTRACK.inside());
-			
-			if (QTRACK.inside() || CURLTRACK.inside() || (!PATH_BREAKER.matcher("" + parse).matches()))
+			lex.next();
+			char parse = lex.current();
+			if (lex.quoted() || lex.inExec() || !(Scajl.MEMBER_ACCESS.indexOf(parse) != -1 || Lexer.isWhitespace(parse)))
 			{
-				building += parse;
-				if (i == preName.length() - 1)
-					out.add(building);
+				if (!lex.hasNext())
+					out.add(new String(chars, building, chars.length - building));
 			}
-			else if (!building.isEmpty())
+			else
 			{
-				out.add(building);
-				building = "";
+				if (lex.index() > building)
+					out.add(new String(chars, building, lex.index() - building));
+				building = lex.index() + 1;
 			}
 		}
 		return out.toArray(new String[out.size()]);
@@ -0,0 +1,244 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+package commands;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.zip.CRC32C;
+
+import commands.Label.LabelTree;
+import commands.Scajl.ScajlException;
+
+/*
+ * The precompiled form of a script: its stripped lines, its Label tree and anonymous scopes, and its lexed statements.
+ * The hash of the source it was compiled from is kept, so that a stale file can be told apart from a current one.
+ */
+public class CompiledScript
+{
+	public static final String EXT = ".scajlc";
+	private static final int MAGIC = 0x53434A43, VERSION = 1;
+	private static final byte SCOPED = 1, ACCESSIBLE = 2, GETS_ACCESS = 4, ANON = 8;
+	private static final byte RELEX = -1;
+	
+	public final long sourceLength, sourceHash;
+	final String[] lines;
+	final Statement[] statements;
+	private final MappedByteBuffer buf;
+	
+	private CompiledScript(MappedByteBuffer buf)
+	{
+		this.buf = buf;
+		if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+			throw new ScajlException("Unrecognized compiled script format.");
+		sourceLength = buf.getLong();
+		sourceHash = buf.getLong();
+		lines = new String[buf.getInt()];
+		for (int i = 0; i < lines.length; i++)
+			lines[i] = string();
+		statements = new Statement[lines.length];
+		for (int i = 0; i < lines.length; i++)
+			statements[i] = statement(lines[i]);
+	}
+	
+	public static boolean isCompiled(File file)
+	{
+		return file.getName().endsWith(EXT);
+	}
+	
+	public static File compiledFor(File source)
+	{
+		String path = source.getPath();
+		return new File((path.endsWith(Scajl.SCRIPT_EXT) ? path.substring(0, path.length() - Scajl.SCRIPT_EXT.length()) : path) + EXT);
+	}
+	
+	public static CompiledScript read(File file) throws FileNotFoundException
+	{
+		if (!file.exists())
+			throw new FileNotFoundException(file.getPath());
+		try (FileChannel chan = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			return new CompiledScript(chan.map(FileChannel.MapMode.READ_ONLY, 0, chan.size()));
+		}
+		catch (IOException | BufferUnderflowException | IllegalArgumentException e)
+		{
+			throw new ScajlException("Unable to read compiled script " + file.getPath() + ": " + e);
+		}
+	}
+	
+	// A compiled file is valid if its source is gone, or if it was compiled from the source as it is now.
+	public static boolean isValid(File compiled, File source)
+	{
+		if (!compiled.exists())
+			return false;
+		try (FileChannel chan = FileChannel.open(compiled.toPath(), StandardOpenOption.READ))
+		{
+			MappedByteBuffer head = chan.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(chan.size(), 24));
+			if (head.remaining() < 24 || head.getInt() != MAGIC || head.getInt() != VERSION)
+				return false;
+			if (!source.exists())
+				return true;
+			long length = head.getLong(), hash = head.getLong();
+			if (source.length() != length)
+				return false;
+			return hash(Files.readAllBytes(source.toPath())) == hash;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+	
+	public static void write(Scajl script, File source, File to) throws IOException
+	{
+		byte[] src = Files.readAllBytes(source.toPath());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(src.length * 2);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(src.length);
+		out.writeLong(hash(src));
+		out.writeInt(script.lines.length);
+		for (String line : script.lines)
+			writeString(out, line);
+		for (Statement st : script.statements)
+			writeStatement(out, st);
+		writeTree(out, script.labelTree, new HashSet<>(script.anonScope.values()));
+		out.flush();
+		File tmp = new File(to.getPath() + ".tmp");
+		Files.write(tmp.toPath(), bytes.toByteArray());
+		Files.move(tmp.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	private static long hash(byte[] bytes)
+	{
+		CRC32C crc = new CRC32C();
+		crc.update(bytes);
+		return crc.getValue();
+	}
+	
+	// Rebuilds the Label tree by re-opening and closing every Label, exactly as loading the source would.
+	void buildLabels(LabelTree tree, HashMap<Integer, Label> anonScope)
+	{
+		readSubs(tree, anonScope);
+		tree.close();
+	}
+	
+	private void readSubs(LabelTree tree, HashMap<Integer, Label> anonScope)
+	{
+		int subs = buf.getInt();
+		for (int i = 0; i < subs; i++)
+		{
+			String name = string();
+			int line = buf.getInt();
+			byte flags = buf.get();
+			Label lab = new Label(name, line, (flags & SCOPED) != 0, (flags & ACCESSIBLE) != 0, (flags & GETS_ACCESS) != 0);
+			if ((flags & ANON) != 0)
+				anonScope.put(line, lab);
+			tree.open(lab);
+			readSubs(tree, anonScope);
+			tree.close();
+		}
+	}
+	
+	private static void writeTree(DataOutputStream out, LabelTree tree, HashSet<Label> anon) throws IOException
+	{
+		out.writeInt(tree.subs().size());
+		for (LabelTree sub : tree.subs())
+		{
+			Label lab = sub.root;
+			writeString(out, lab.name);
+			out.writeInt(lab.line);
+			out.writeByte((lab.isScoped ? SCOPED : 0) | (lab.isAccessible ? ACCESSIBLE : 0) | (lab.getsAccess ? GETS_ACCESS : 0) | (anon.contains(lab) ? ANON : 0));
+			writeTree(out, sub, anon);
+		}
+	}
+	
+	private Statement statement(String line)
+	{
+		byte kind = buf.get();
+		if (kind == RELEX)
+			return Statement.ofLine(line);
+		String source = string();
+		boolean endsLabel = buf.get() != 0;
+		if (kind != Statement.EXECUTABLE)
+			return new Statement(source, kind, endsLabel);
+		String exec = string();
+		boolean varArgArray = buf.get() != 0;
+		String head = string();
+		String[] args = new String[buf.getInt()];
+		String[][] tokens = new String[args.length][];
+		for (int i = 0; i < args.length; i++)
+		{
+			args[i] = string();
+			tokens[i] = new String[buf.getInt()];
+			for (int j = 0; j < tokens[i].length; j++)
+				tokens[i][j] = string();
+		}
+		return new Statement(source, exec, endsLabel, varArgArray, head, args, tokens);
+	}
+	
+	private static void writeStatement(DataOutputStream out, Statement st) throws IOException
+	{
+		// Statements that failed to lex are stored as their line, so that they fail the same way when run.
+		if (!st.compiles())
+		{
+			out.writeByte(RELEX);
+			return;
+		}
+		out.writeByte(st.kind);
+		writeString(out, st.source);
+		out.writeBoolean(st.endsLabel);
+		if (st.kind != Statement.EXECUTABLE)
+			return;
+		writeString(out, st.line);
+		out.writeBoolean(st.varArgArray);
+		writeString(out, st.head.input);
+		out.writeInt(st.args.length);
+		for (int i = 0; i < st.args.length; i++)
+		{
+			writeString(out, st.args[i]);
+			out.writeInt(st.tokens[i].length);
+			for (String tok : st.tokens[i])
+				writeString(out, tok);
+		}
+	}
+	
+	private String string()
+	{
+		byte[] bytes = new byte[buf.getInt()];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	private static void writeString(DataOutputStream out, String str) throws IOException
+	{
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package commands;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public abstract class Delimiter
+{
+	private static final ConcurrentHashMap<String, Delimiter> LITERALS = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+	
+	public static final Delimiter WHITESPACE = new CharSetDelimiter(Lexer.WHITESPACE);
+	
+	public final int length;
+	
+	protected Delimiter(int length)
+	{
+		this.length = length;
+	}
+	
+	public abstract boolean matches(char[] chars, int last);
+	
+	public static Delimiter of(String literal)
+	{
+		return LITERALS.computeIfAbsent(literal, (lit) -> lit.length() == 1 ? new CharDelimiter(lit.charAt(0)) : new LiteralDelimiter(lit));
+	}
+	public static Delimiter of(char literal)
+	{
+		return of("" + literal);
+	}
+	public static Delimiter anyOf(String chars)
+	{
+		return new CharSetDelimiter(chars);
+	}
+	public static Delimiter regex(String regEx, int trackLength)
+	{
+		return new RegexDelimiter(PATTERNS.computeIfAbsent(regEx, Pattern::compile), trackLength);
+	}
+	
+	///////////////////
+	
+	public static class CharDelimiter extends Delimiter
+	{
+		private final char delim;
+		
+		public CharDelimiter(char delim)
+		{
+			super(1);
+			this.delim = delim;
+		}
+		
+		@Override
+		public boolean matches(char[] chars, int last)
+		{
+			return chars[last] == delim;
+		}
+	}
+	
+	public static class CharSetDelimiter extends Delimiter
+	{
+		private final String delims;
+		
+		public CharSetDelimiter(String delims)
+		{
+			super(1);
+			this.delims = delims;
+		}
+		
+		@Override
+		public boolean matches(char[] chars, int last)
+		{
+			return delims.indexOf(chars[last]) != -1;
+		}
+	}
+	
+	public static class LiteralDelimiter extends Delimiter
+	{
+		private final char[] delim;
+		
+		public LiteralDelimiter(String delim)
+		{
+			super(delim.length());
+			this.delim = delim.toCharArray();
+		}
+		
+		@Override
+		public boolean matches(char[] chars, int last)
+		{
+			int start = last - length + 1;
+			if (start < 0)
+				return false;
+			for (int i = 0; i < length; i++)
+				if (chars[start + i] != delim[i])
+					return false;
+			return true;
+		}
+	}
+	
+	public static class RegexDelimiter extends Delimiter
+	{
+		private final Matcher matcher;
+		private char[] wrapped = null;
+		private CharBuffer window;
+		
+		public RegexDelimiter(Pattern pattern, int trackLength)
+		{
+			super(trackLength);
+			matcher = pattern.matcher("");
+		}
+		
+		@Override
+		public boolean matches(char[] chars, int last)
+		{
+			if (wrapped != chars)
+				window = CharBuffer.wrap(wrapped = chars);
+			window.limit(last + 1);
+			window.position(Math.max(0, last - length + 1));
+			return matcher.reset(window).matches();
+		}
+	}
+}
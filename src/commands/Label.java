@@ -17,8 +17,10 @@
 package commands;
 
 import java.lang.ref.WeakReference;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 
 import group.MixedPair;
@@ -62,7 +64,9 @@ public class Label
 	public static class LabelTree
 	{
 		private final HashMap<String, LabelTree> subs = new HashMap<String, LabelTree>(7);
-		private final WeakReference<LabelTree> parent;
+		// Lookups from a closed tree never change, so they're only walked once per name or reference.
+		private final ConcurrentHashMap<String, LabelTree> names = new ConcurrentHashMap<>(), refs = new ConcurrentHashMap<>();
+		private WeakReference<LabelTree> parent;
 		public final Label root;
 		private LabelTree growing = null;
 		private boolean done = false;
@@ -118,6 +122,31 @@ public class Label
 		}
 		
 		public LabelTree getFor(String label)
+		{
+			LabelTree got = names.get(label);
+			if (got == null && (got = find(label)) != null && closed())
+				names.put(label, got);
+			return got;
+		}
+		
+		// Resolves a Label reference as written in a script, which may still carry its '--' or '~~'.
+		public LabelTree resolve(String reference)
+		{
+			LabelTree got = refs.get(reference);
+			if (got == null && (got = getFor(reference.replaceFirst(Scajl.LABEL_REG, ""))) != null && closed())
+				refs.put(reference, got);
+			return got;
+		}
+		
+		private boolean closed()
+		{
+			for (LabelTree tree = this; tree != null; tree = tree.parent.get())
+				if (!tree.done)
+					return false;
+			return true;
+		}
+		
+		private LabelTree find(String label)
 		{
 			LabelTree parent = this;
 			while (parent != null)
@@ -140,6 +169,33 @@ public class Label
 			return getFor(label) != null;
 		}
 		
+		Collection<LabelTree> subs()
+		{
+			return subs.values();
+		}
+		
+		// Takes over the Labels of another finished tree with the same root.
+		void adopt(LabelTree from)
+		{
+			reset();
+			for (LabelTree sub : from.subs.values())
+			{
+				sub.parent = new WeakReference<>(this);
+				subs.put(sub.root.name, sub);
+			}
+			done = from.done;
+			growing = from.growing;
+		}
+		
+		void reset()
+		{
+			subs.clear();
+			names.clear();
+			refs.clear();
+			growing = null;
+			done = false;
+		}
+		
 		@Override
 		public String toString()
 		{
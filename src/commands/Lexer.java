@@ -0,0 +1,206 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package commands;
+
+public class Lexer
+{
+	public static final int END = -1, TEXT = 0, SEPARATOR = 1, STRING = 2, BOX = 3, GROUP = 4, EXEC = 5;
+	public static final String WHITESPACE = " \t\n\u000B\f\r";
+	
+	private final char[] chars;
+	private final int end;
+	private String separators = "";
+	private int pos, quotes = 0, boxes = 0, groups = 0, execs = 0, outer = TEXT;
+	private int spanStart, spanEnd;
+	private boolean wasGrouped = false;
+	
+	public Lexer(char[] chars, int start, int end)
+	{
+		this.chars = chars;
+		this.pos = start;
+		this.end = end;
+	}
+	public Lexer(char[] chars)
+	{
+		this(chars, 0, chars.length);
+	}
+	
+	public Lexer separators(String separators)
+	{
+		this.separators = separators;
+		return this;
+	}
+	
+	public boolean hasNext()
+	{
+		return pos < end;
+	}
+	
+	public int next()
+	{
+		boolean wasNested = nested();
+		wasGrouped = groups > 0;
+		char ch = chars[pos++];
+		if (ch == Scajl.STRING_CHAR)
+			quotes++;
+		if (!quoted())
+		{
+			switch (ch)
+			{
+				case Scajl.ARR_S: boxes++; break;
+				case Scajl.ARR_E: boxes--; break;
+				case Scajl.TOK_S: groups++; break;
+				case Scajl.TOK_E: groups--; break;
+				case Scajl.SCOPE_S: execs++; break;
+				case Scajl.SCOPE_E: execs--; break;
+			}
+		}
+		boolean nested = nested();
+		if (!wasNested && nested)
+			outer = kindOf(ch);
+		if (!nested && separators.indexOf(ch) != -1)
+			return SEPARATOR;
+		return nested || wasNested ? outer : TEXT;
+	}
+	
+	public int nextSpan()
+	{
+		if (pos >= end)
+			return END;
+		spanStart = pos;
+		int kind = next();
+		if (kind == TEXT)
+		{
+			while (pos < end && peek() == TEXT)
+				next();
+		}
+		else if (kind != SEPARATOR)
+		{
+			while (pos < end && nested())
+				next();
+		}
+		spanEnd = pos;
+		return kind;
+	}
+	
+	private int peek()
+	{
+		if (nested())
+			return outer;
+		char ch = chars[pos];
+		if (ch == Scajl.STRING_CHAR || (ch == Scajl.ARR_S && boxes == 0) || (ch == Scajl.TOK_S && groups == 0) || (ch == Scajl.SCOPE_S && execs == 0))
+			return kindOf(ch);
+		return separators.indexOf(ch) != -1 ? SEPARATOR : TEXT;
+	}
+	
+	public void skip()
+	{
+		while (pos < end)
+			next();
+	}
+	
+	public int index()
+	{
+		return pos - 1;
+	}
+	public char current()
+	{
+		return chars[pos - 1];
+	}
+	public int spanStart()
+	{
+		return spanStart;
+	}
+	public int spanEnd()
+	{
+		return spanEnd;
+	}
+	
+	public boolean quoted()
+	{
+		return quotes % 2 == 1;
+	}
+	public boolean inBox()
+	{
+		return boxes > 0;
+	}
+	public boolean inGroup()
+	{
+		return groups > 0;
+	}
+	public boolean inExec()
+	{
+		return execs > 0;
+	}
+	public boolean nested()
+	{
+		return quoted() || boxes > 0 || groups > 0 || execs > 0;
+	}
+	public boolean groupEntered()
+	{
+		return groups > 0 && !wasGrouped;
+	}
+	public boolean groupToggled()
+	{
+		return (groups > 0) != wasGrouped;
+	}
+	
+	private static int kindOf(char opener)
+	{
+		switch (opener)
+		{
+			case Scajl.STRING_CHAR: return STRING;
+			case Scajl.ARR_S: return BOX;
+			case Scajl.TOK_S: return GROUP;
+			case Scajl.SCOPE_S: return EXEC;
+			default: return TEXT;
+		}
+	}
+	
+	public static boolean isWhitespace(char ch)
+	{
+		return WHITESPACE.indexOf(ch) != -1;
+	}
+	
+	public static String trimmed(char[] chars, int start, int end)
+	{
+		while (start < end && chars[start] <= ' ')
+			start++;
+		while (end > start && chars[end - 1] <= ' ')
+			end--;
+		return start == end ? "" : new String(chars, start, end - start);
+	}
+	public static int trimStart(char[] chars, int start, int end)
+	{
+		while (start < end && chars[start] <= ' ')
+			start++;
+		return start;
+	}
+	public static int trimEnd(char[] chars, int start, int end)
+	{
+		while (end > start && chars[end - 1] <= ' ')
+			end--;
+		return end;
+	}
+	public static boolean isBlank(CharSequence seq)
+	{
+		for (int i = 0; i < seq.length(); i++)
+			if (seq.charAt(i) > ' ')
+				return false;
+		return true;
+	}
+}
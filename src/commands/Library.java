@@ -22,7 +22,7 @@ public class Library
 {
 	public final Runnable load;
 	public final String name;
-	private boolean loaded = false;
+	private volatile boolean loaded = false;
 	private final Library[] dependancies;
 	
 	public Library(String name, Runnable onLoad, Library... dependancies)
@@ -33,13 +33,22 @@ public class Library
 	}
 	
 	public void load()
+	{
+		synchronized (Library.class)
+		{
+			loadSync();
+		}
+	}
+	
+	private void loadSync()
 	{
 		if (!loaded)
 		{
 			for (Library lib : dependancies)
-				lib.load();
+				lib.loadSync();
 			load.run();
 			loaded = true;
+			RegistryVersion.changed();
 		}
 	}
 	
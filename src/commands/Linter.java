@@ -0,0 +1,320 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+package commands;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// Looks through a loaded script for patterns that get slower the more often they run, like growing an Array or String
+// by one piece per iteration of a loop. Nothing is run, so Labels are matched to their calls by name alone.
+public class Linter
+{
+	// Past this, recursive calls are all treated as equally deep.
+	private static final int MAX_DEPTH = 3;
+	
+	public static enum Kind
+	{
+		APPEND("Array.append copies the whole Array on every call.", 1),
+		RESIZE("Growing an Array through its length copies the whole Array on every change.", 1),
+		CONCAT("Building a String by concatenation copies the whole String on every step.", 1),
+		EXECUTABLE("The Executable gives the same result on every iteration, but is evaluated again each time.", 0);
+		
+		////////////////
+		
+		public final String desc;
+		private final int extra;
+		Kind(String desc, int extra)
+		{
+			this.desc = desc;
+			this.extra = extra;
+		}
+	}
+	
+	public static class Finding
+	{
+		public final int line;
+		public final Kind kind;
+		public final int degree;
+		public final String source;
+		
+		private Finding(int line, Kind kind, int depth, String source)
+		{
+			this.line = line;
+			this.kind = kind;
+			this.degree = depth + kind.extra;
+			this.source = source;
+		}
+		
+		// The estimated cost class of the line, in terms of how many times its loops run.
+		public String cost()
+		{
+			return degree == 1 ? "O(n)" : "O(n^" + degree + ")";
+		}
+		
+		@Override
+		public String toString()
+		{
+			return "Line " + (line + 1) + ", " + cost() + ": " + kind.desc + " | " + source;
+		}
+	}
+	
+	public static ArrayList<Finding> lint(Scajl script)
+	{
+		return lint(script.statements);
+	}
+	
+	public static ArrayList<Finding> lint(Statement[] statements)
+	{
+		int[] depths = depths(statements);
+		ArrayList<Finding> found = new ArrayList<>();
+		for (int i = 0; i < statements.length; i++)
+		{
+			Statement st = statements[i];
+			if (depths[i] == 0 || st.kind != Statement.EXECUTABLE || !st.compiles())
+				continue;
+			lintLine(st, i, depths[i], found);
+		}
+		return found;
+	}
+	
+	private static void lintLine(Statement st, int line, int depth, ArrayList<Finding> found)
+	{
+		CmdHead head = st.head;
+		if (isAppend(head))
+			found.add(new Finding(line, Kind.APPEND, depth, st.source));
+		for (String target : head.storing)
+			lintSet(st, st, target, line, depth, found);
+		
+		// Sets are "VarName Value", with "var_if" and "var_if_not" taking a Boolean first.
+		int at = head.isMemberCmd ? -1 : head.name.equals(Scajl.VAR.name) ? 0
+				: head.name.equals(Scajl.VAR_IF.name) || head.name.equals(Scajl.VAR_IF_NOT.name) ? 1 : -1;
+		for (String[] toks : st.tokens)
+		{
+			for (int j = 0; j < toks.length; j++)
+			{
+				if (at == -1 || j != at + 1 || toks.length != at + 2 || !isExecutable(toks[j]))
+					continue;
+				Statement inner = Statement.ofExecutable(toks[j].substring(1, toks[j].length() - 1));
+				if (inner.kind == Statement.EXECUTABLE && inner.compiles())
+					lintSet(st, inner, toks[at], line, depth, found);
+			}
+		}
+		
+		// Only the line's own inline loop is checked, as anything it writes is on the line itself. A loop head that runs
+		// Executables may write anything, so those lines are left alone.
+		if (!head.isInlineFor && !head.isInlineWhile || runsCode(head.inlineFor) || runsCode(head.inlineWhile) || runsCode(head.inlineIf))
+			return;
+		ArrayList<String> written = new ArrayList<>();
+		writes(st, at, written);
+		for (String[] toks : st.tokens)
+		{
+			for (String tok : toks)
+			{
+				if (isExecutable(tok) && hasInvariant(tok, written))
+				{
+					found.add(new Finding(line, Kind.EXECUTABLE, depth, st.source));
+					return;
+				}
+			}
+		}
+	}
+	
+	// The variables a statement stores to or sets, including through the Executables in its arguments.
+	private static void writes(Statement st, int at, ArrayList<String> written)
+	{
+		for (String target : st.head.storing)
+			written.add(baseOf(target));
+		for (String[] toks : st.tokens)
+		{
+			if (at != -1 && toks.length > at)
+				written.add(baseOf(toks[at]));
+			for (String tok : toks)
+			{
+				if (!isExecutable(tok))
+					continue;
+				Statement inner = Statement.ofExecutable(tok.substring(1, tok.length() - 1));
+				if (inner.kind == Statement.EXECUTABLE && inner.compiles())
+					writes(inner, -1, written);
+			}
+		}
+	}
+	
+	// Whether the Executable, or one nested in it, could be worked out once before the loop.
+	private static boolean hasInvariant(String exec, ArrayList<String> written)
+	{
+		if (invariant(exec, written))
+			return true;
+		Statement st = Statement.ofExecutable(exec.substring(1, exec.length() - 1));
+		if (st.kind != Statement.EXECUTABLE || !st.compiles())
+			return false;
+		for (String[] toks : st.tokens)
+			for (String tok : toks)
+				if (isExecutable(tok) && hasInvariant(tok, written))
+					return true;
+		return false;
+	}
+	
+	// Whether the Executable is a pure built-in reading nothing that changes between iterations.
+	private static boolean invariant(String exec, ArrayList<String> written)
+	{
+		Statement st = Statement.ofExecutable(exec.substring(1, exec.length() - 1));
+		if (st.kind != Statement.EXECUTABLE || !st.compiles() || !Node.Exec.pure(st.head) || st.head.storing.length != 0)
+			return false;
+		for (String[] toks : st.tokens)
+		{
+			for (String tok : toks)
+			{
+				if (isExecutable(tok) ? !invariant(tok, written) : tok.equals(Scajl.INDEX) || written.contains(baseOf(tok)))
+					return false;
+			}
+		}
+		return true;
+	}
+	
+	private static String baseOf(String token)
+	{
+		int dot = token.indexOf(Scajl.ARR_ACCESS);
+		return dot == -1 ? token : token.substring(0, dot);
+	}
+	
+	private static boolean runsCode(String headValue)
+	{
+		return headValue != null && headValue.indexOf(Scajl.SCOPE_S) != -1;
+	}
+	
+	// Checks a statement whose output is stored to the target, which may be nested in the line's own set.
+	private static void lintSet(Statement st, Statement value, String target, int line, int depth, ArrayList<Finding> found)
+	{
+		if (!mentions(value, target))
+			return;
+		if (isLength(target))
+			found.add(new Finding(line, Kind.RESIZE, depth, st.source));
+		else if (!value.head.isMemberCmd && value.head.name.equals(Scajl.CONCAT.name))
+			found.add(new Finding(line, Kind.CONCAT, depth, st.source));
+	}
+	
+	private static boolean isAppend(CmdHead head)
+	{
+		return head.parentPath.length == 2 && head.parentPath[0].equals("Array") && head.name.equals("append");
+	}
+	
+	private static boolean isLength(String target)
+	{
+		return target.endsWith(Scajl.ARR_ACCESS + Scajl.ARR_LEN);
+	}
+	
+	private static boolean isExecutable(String token)
+	{
+		return token.length() > 1 && token.charAt(0) == Scajl.SCOPE_S && token.charAt(token.length() - 1) == Scajl.SCOPE_E;
+	}
+	
+	// Whether any of the statement's arguments read the given variable.
+	private static boolean mentions(Statement st, String var)
+	{
+		for (String[] toks : st.tokens)
+		{
+			for (String tok : toks)
+			{
+				if (tok.equals(var))
+					return true;
+				if (isExecutable(tok))
+				{
+					Statement inner = Statement.ofExecutable(tok.substring(1, tok.length() - 1));
+					if (inner.kind == Statement.EXECUTABLE && inner.compiles() && mentions(inner, var))
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	// How many loops each line runs inside of. A Label is as deep as the deepest line that calls it, plus one if that line
+	// repeats the call.
+	private static int[] depths(Statement[] statements)
+	{
+		int[] owners = Scajl.owners(statements);
+		int[] labelOf = new int[statements.length];
+		HashMap<String, ArrayList<Integer>> labels = new HashMap<>();
+		for (int i = 0; i < statements.length; i++)
+		{
+			int at = owners[i];
+			while (at >= 0 && statements[at].kind != Statement.LABEL)
+				at = owners[at];
+			labelOf[i] = at;
+			if (statements[i].kind == Statement.LABEL)
+				labels.computeIfAbsent(new Label(Scajl.firstToken(statements[i].line), i).name, (k) -> new ArrayList<>()).add(i);
+		}
+		
+		int[] labelDepth = new int[statements.length];
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			for (int i = 0; i < statements.length; i++)
+			{
+				Statement st = statements[i];
+				if (st.kind != Statement.EXECUTABLE || !st.compiles())
+					continue;
+				String called = calledLabel(st);
+				if (called == null || !labels.containsKey(called))
+					continue;
+				int depth = Math.min(MAX_DEPTH, (labelOf[i] >= 0 ? labelDepth[labelOf[i]] : 0) + (repeats(st) ? 1 : 0));
+				for (int lab : labels.get(called))
+				{
+					if (labelDepth[lab] < depth)
+					{
+						labelDepth[lab] = depth;
+						changed = true;
+					}
+				}
+			}
+		}
+		
+		int[] depths = new int[statements.length];
+		for (int i = 0; i < statements.length; i++)
+		{
+			Statement st = statements[i];
+			depths[i] = labelOf[i] >= 0 ? labelDepth[labelOf[i]] : 0;
+			if (st.kind == Statement.EXECUTABLE && st.compiles() && (st.head.isInlineFor || st.head.isInlineWhile))
+				depths[i]++;
+		}
+		return depths;
+	}
+	
+	private static boolean repeats(Statement st)
+	{
+		return st.head.isInlineFor || st.head.isInlineWhile || !st.head.isMemberCmd && (st.head.name.equals(Scajl.FOR.name) || st.head.name.equals(Scajl.WHILE.name));
+	}
+	
+	// The name of the Label the statement runs, if it is one of the built-in calls.
+	private static String calledLabel(Statement st)
+	{
+		if (st.head.isMemberCmd)
+			return null;
+		String name = st.head.name;
+		int arg;
+		if (name.equals(Scajl.CALL.name) || name.equals(Scajl.GOTO.name))
+			arg = 0;
+		else if (name.equals(Scajl.FOR.name) || name.equals(Scajl.WHILE.name))
+			arg = 1;
+		else
+			return null;
+		if (st.tokens.length <= arg || st.tokens[arg].length == 0)
+			return null;
+		String label = st.tokens[arg][0];
+		return label.substring(label.lastIndexOf(Scajl.ARR_ACCESS) + 1);
+	}
+}
@@ -0,0 +1,710 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+package commands;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import commands.Command.RunnableCommand;
+import commands.ScajlVariable.SVJavObj;
+import commands.ScajlVariable.SVMember;
+import commands.ScajlVariable.SVString;
+import commands.ScajlVariable.SVVal;
+import commands.libs.Bool;
+
+public abstract class Node<T>
+{
+	public abstract T execute(Scajl ctx, SVMember selfCtx);
+	
+	////////////////////////////////////////////////
+	
+	public static class Token extends Node<ScajlVariable>
+	{
+		public final String token;
+		public final boolean raw, literal, name;
+		private ScajlVariable constant = null;
+		
+		public Token(String token, boolean raw)
+		{
+			this.token = token;
+			this.raw = raw;
+			this.literal = isLiteral(token, raw);
+			this.name = !raw && !token.equals(Scajl.NULL) && !token.equals(Scajl.ARR_UP) && isPlainName(token);
+		}
+		
+		@Override
+		public ScajlVariable execute(Scajl ctx, SVMember selfCtx)
+		{
+			if (name)
+			{
+				ScajlVariable var = ctx.scope.get(token);
+				return var != null ? var : new SVVal(token, token, selfCtx);
+			}
+			if (selfCtx != null || !literal)
+				return ctx.getVar(token, raw, selfCtx);
+			if (constant == null)
+				constant = ctx.constant((raw ? Scajl.RAW : "") + token, ctx.getVar(token, raw, selfCtx));
+			return constant;
+		}
+	}
+	
+	public static boolean isPlainName(String name)
+	{
+		return !Scajl.ILLEGAL_VAR_MATCHER.matcher(name).matches() && !CmdArg.isNumber(name);
+	}
+	
+	// Whether a token resolves to the same immutable value no matter what variables are defined.
+	public static boolean isLiteral(String token, boolean raw)
+	{
+		if (token.isEmpty() || token.equals(Scajl.NULL))
+			return false;
+		if (CmdArg.isNumber(token))
+			return true;
+		char first = token.charAt(0);
+		if (VAR_MODS.indexOf(first) != -1)
+			return false;
+		if (raw)
+			return true;
+		if (first == Scajl.STRING_CHAR)
+			return token.length() > 1 && token.indexOf(Scajl.STRING_CHAR, 1) == token.length() - 1;
+		// Comparators can't be variable names, so they always resolve to themselves.
+		for (int i = 0; i < token.length(); i++)
+			if (COMPARATOR_CHARS.indexOf(token.charAt(i)) == -1)
+				return false;
+		return true;
+	}
+	private static final String VAR_MODS = String.join("", Scajl.VALID_VAR_MODS), COMPARATOR_CHARS = "=<>!";
+	
+	// An inline head value, such as the condition of `cond?` or the count of `N:`.
+	public static class Value<T> extends Node<T>
+	{
+		public final CmdArg<T> arg;
+		public final Token token;
+		public final ArgCache cache;
+		
+		public Value(CmdArg<T> arg, String token)
+		{
+			this.arg = arg;
+			this.token = new Token(token, false);
+			cache = ArgCache.of(arg);
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public T execute(Scajl ctx, SVMember selfCtx)
+		{
+			ScajlVariable[] vars = new ScajlVariable[] { token.execute(ctx, selfCtx) };
+			T obj = cache == null ? arg.parse(vars, 0, ctx) : (T) cache.parse(arg, vars, ctx);
+			if (obj == null)
+				ctx.parseExcept("Invalid token resolution", token.token, "Expected type: " + arg.type);
+			return obj;
+		}
+	}
+	
+	public static class Arg extends Node<ScajlVariable[]>
+	{
+		private final Statement st;
+		private final Command cmd;
+		private final int argInd, varArgInd;
+		private final boolean atVA, varArgArray, misplacedVarArg;
+		private final CmdArg<?> origArg, arg;
+		private final Token[] tokens;
+		public final ArgCache cache;
+		
+		private Arg(Statement st, Command cmd, int argInd)
+		{
+			this.st = st;
+			this.cmd = cmd;
+			this.argInd = argInd;
+			CmdArg<?>[] args = cmd.args;
+			boolean varArgs = cmd.isVarArgs();
+			atVA = varArgs && argInd >= args.length - 1;
+			varArgInd = Math.min(argInd, args.length - 1);
+			varArgArray = atVA && st.varArgArray;
+			misplacedVarArg = !(varArgs && argInd == args.length - 1) && st.args[argInd].startsWith(Scajl.VAR_ARG_STR);
+			origArg = args[varArgInd];
+			if (st.unpacks[argInd])
+			{
+				// Unpacked tokens only have a count at runtime, so resolution waits until then.
+				arg = null;
+				tokens = null;
+				cache = null;
+			}
+			else
+			{
+				String[] strs = st.tokens[argInd];
+				arg = varArgArray ? cmd.variadic : CmdArg.getArgForCount(origArg, strs.length);
+				tokens = new Token[strs.length];
+				for (int i = 0; i < strs.length; i++)
+					tokens[i] = new Token(strs[i], !varArgArray && arg != null && rawToken(arg, i));
+				cache = varArgArray ? null : ArgCache.of(arg, strs.length);
+			}
+		}
+		
+		private boolean rawToken(CmdArg<?> arg, int tok)
+		{
+			return cmd.rawArg[varArgInd] || arg.rawToken(tok);
+		}
+		
+		private CmdArg<?> argFor(Scajl ctx, CmdArg<?> arg, int count)
+		{
+			if (arg == null)
+				ctx.parseExcept("Invalid token count for CmdArg format '" + origArg.type + "'", st.line, "Format requires " + origArg.tokenCount() + " tokens, but " + count + " have been provided. Tokens are separated by spaces. From tokens: " + st.tokenStrs[argInd]);
+			return arg;
+		}
+		
+		@Override
+		public ScajlVariable[] execute(Scajl ctx, SVMember selfCtx)
+		{
+			if (misplacedVarArg)
+				ctx.parseExcept("Invalid argument", st.line, "Only the last argument in var-args commands may use the var-arg array modifier '" + Scajl.VAR_ARG_STR + "'");
+			ScajlVariable[] vars;
+			if (tokens != null)
+			{
+				if (!varArgArray)
+					argFor(ctx, arg, tokens.length);
+				vars = new ScajlVariable[tokens.length];
+				for (int i = 0; i < vars.length; i++)
+					vars[i] = tokens[i].execute(ctx, selfCtx);
+			}
+			else
+			{
+				Object[] preParse = st.preParse(argInd, ctx);
+				CmdArg<?> arg = varArgArray ? null : argFor(ctx, CmdArg.getArgForCount(origArg, preParse.length), preParse.length);
+				vars = new ScajlVariable[preParse.length];
+				for (int i = 0; i < vars.length; i++)
+				{
+					if (preParse[i] instanceof String)
+						vars[i] = ctx.getVar((String) preParse[i], arg != null && rawToken(arg, i), selfCtx);
+					else
+						vars[i] = (ScajlVariable) preParse[i];
+				}
+			}
+			return vars;
+		}
+		
+		public Object parse(ScajlVariable[] vars, Scajl ctx)
+		{
+			Object obj;
+			if (varArgArray)
+			{
+				obj = cmd.variadic.parse(vars, 0, ctx);
+				if (obj == null && !cmd.nullableArg(argInd))
+					ctx.parseExcept("Invalid var-arg array resolution", trimmed(vars), "Expected type: " + cmd.variadic.type + ". From tokens: " + st.tokenStrs[argInd]);
+			}
+			else
+			{
+				CmdArg<?> arg = tokens != null ? this.arg : CmdArg.getArgForCount(origArg, vars.length);
+				obj = cache != null ? cache.parse(arg, vars, ctx) : arg.parse(vars, 0, ctx);
+				if (obj == null && !cmd.nullableArg(varArgInd))
+					ctx.parseExcept("Invalid token resolution", trimmed(vars), "Expected type: " + arg.type + ". From tokens: " + st.tokenStrs[argInd]);
+			}
+			return obj;
+		}
+		
+		private boolean resolved(Object[] objs)
+		{
+			if (varArgArray)
+				return objs[objs.length - 1] != null;
+			else if (!atVA)
+				return objs[argInd] != null;
+			return ((Object[]) objs[objs.length - 1])[argInd - objs.length + 1] != null;
+		}
+		
+		public void store(Object[] objs, Object obj)
+		{
+			if (varArgArray)
+				objs[objs.length - 1] = obj;
+			else if (!atVA)
+				objs[argInd] = obj;
+			else
+				((Object[]) objs[objs.length - 1])[argInd - objs.length + 1] = obj;
+		}
+		
+		public String trimmed(ScajlVariable[] vars)
+		{
+			if (varArgArray)
+				return vars[0].raw();
+			StringBuilder str = new StringBuilder();
+			for (int i = 0; i < vars.length; i++)
+				str.append(i == 0 ? "" : " ").append(vars[i].raw());
+			return str.toString();
+		}
+	}
+	
+	// Remembers what a single-token argument site has been given. Plain values never change, so their parse is kept by
+	// identity. An Object variable's match only depends on the classes it holds, so that is kept by those classes.
+	// Expressions are kept by the identity of all their tokens, which are constant wherever they are written out.
+	public static class ArgCache
+	{
+		public static final int ENTRIES = 4;
+		private final Object[] keys = new Object[ENTRIES], parsed = new Object[ENTRIES];
+		private final boolean objects, expression;
+		private int size = 0;
+		private long hits = 0, misses = 0;
+		private boolean megamorphic = false;
+		
+		private ArgCache(boolean objects, boolean expression)
+		{
+			this.objects = objects;
+			this.expression = expression;
+		}
+		
+		public static ArgCache of(CmdArg<?> arg)
+		{
+			return of(arg, 1);
+		}
+		
+		public static ArgCache of(CmdArg<?> arg, int tokens)
+		{
+			if (arg != null && arg.cls == CalcExp.class)
+				return new ArgCache(false, true);
+			if (tokens != 1)
+				return null;
+			if (arg instanceof ScriptObject.ObjectArg)
+				return new ArgCache(true, false);
+			if (arg == CmdArg.DOUBLE || arg == CmdArg.INT || arg == CmdArg.BOOLEAN)
+				return new ArgCache(false, false);
+			return null;
+		}
+		
+		public Object parse(CmdArg<?> arg, ScajlVariable[] vars, Scajl ctx)
+		{
+			ScajlVariable var = vars[0];
+			if (expression)
+				return parseTokens(arg, vars, ctx);
+			if (objects)
+				return var instanceof SVJavObj ? parseObject((ScriptObject.ObjectArg<?>) arg, ((SVJavObj) var).value) : arg.parse(vars, 0, ctx);
+			if (!(var instanceof SVVal || var instanceof SVString))
+				return arg.parse(vars, 0, ctx);
+			for (int i = 0; i < size; i++)
+			{
+				if (keys[i] == var)
+				{
+					hits++;
+					return parsed[i];
+				}
+			}
+			Object obj = arg.parse(vars, 0, ctx);
+			miss(var, obj);
+			return obj;
+		}
+		
+		private Object parseTokens(CmdArg<?> arg, ScajlVariable[] vars, Scajl ctx)
+		{
+			for (ScajlVariable var : vars)
+				if (!(var instanceof SVVal || var instanceof SVString))
+					return arg.parse(vars, 0, ctx);
+			for (int i = 0; i < size; i++)
+			{
+				if (sameVars((Object[]) keys[i], vars))
+				{
+					hits++;
+					return parsed[i];
+				}
+			}
+			Object obj = arg.parse(vars, 0, ctx);
+			miss(vars.clone(), obj);
+			return obj;
+		}
+		
+		private Object parseObject(ScriptObject.ObjectArg<?> arg, Object[] types)
+		{
+			for (int i = 0; i < size; i++)
+			{
+				if (sameClasses((Object[]) keys[i], types))
+				{
+					hits++;
+					int at = (int) parsed[i];
+					return at == -1 ? null : types[at];
+				}
+			}
+			int at = arg.indexIn(types);
+			Object[] classes = new Object[types.length];
+			for (int i = 0; i < types.length; i++)
+				classes[i] = types[i].getClass();
+			miss(classes, at);
+			return at == -1 ? null : types[at];
+		}
+		
+		private static boolean sameVars(Object[] key, ScajlVariable[] vars)
+		{
+			if (key.length != vars.length)
+				return false;
+			for (int i = 0; i < vars.length; i++)
+				if (key[i] != vars[i])
+					return false;
+			return true;
+		}
+		
+		private static boolean sameClasses(Object[] classes, Object[] types)
+		{
+			if (classes.length != types.length)
+				return false;
+			for (int i = 0; i < types.length; i++)
+				if (classes[i] != types[i].getClass())
+					return false;
+			return true;
+		}
+		
+		private void miss(Object key, Object obj)
+		{
+			misses++;
+			if (megamorphic)
+				return;
+			if (size == ENTRIES)
+			{
+				// Once it has seen more than it can hold, the site is left to parse as usual.
+				megamorphic = true;
+				size = 0;
+				Arrays.fill(keys, null);
+				Arrays.fill(parsed, null);
+				return;
+			}
+			keys[size] = key;
+			parsed[size++] = obj;
+		}
+		
+		public long hits()
+		{
+			return hits;
+		}
+		
+		public long misses()
+		{
+			return misses;
+		}
+		
+		public boolean isMegamorphic()
+		{
+			return megamorphic;
+		}
+		
+		@Override
+		public String toString()
+		{
+			return (megamorphic ? "megamorphic" : size <= 1 ? "monomorphic" : "polymorphic") + ", hits: " + hits + ", misses: " + misses;
+		}
+	}
+	
+	// A whole executable line, with its inline heads and arguments resolved against a single Command.
+	public static class Exec extends Node<RunnableCommand>
+	{
+		private static final Command[] FOLDABLE = new Command[] { Scajl.ADD, Scajl.MULT, Scajl.COMPARE, Scajl.CONCAT, Scajl.NOT };
+		
+		public final Statement st;
+		public final Command cmd;
+		public final Value<Boolean> inlineIf, inlineWhile;
+		public final Value<Integer> inlineFor;
+		private final boolean badVarArgArray, badArgCount, foldable;
+		private final Arg[] args;
+		private final boolean[] invariant;
+		private RunnableCommand folded = null;
+		
+		public Exec(Statement st, Command cmd)
+		{
+			this.st = st;
+			this.cmd = cmd;
+			CmdHead head = st.head;
+			inlineIf = head.isInlineIf ? new Value<>(CmdArg.BOOLEAN, head.inlineIf) : null;
+			inlineWhile = head.isInlineWhile ? new Value<>(CmdArg.BOOLEAN, head.inlineWhile) : null;
+			inlineFor = head.isInlineFor ? new Value<>(CmdArg.INT, head.inlineFor) : null;
+			if (cmd == null)
+			{
+				badVarArgArray = badArgCount = foldable = false;
+				args = null;
+				invariant = null;
+				return;
+			}
+			int count = cmd.args.length;
+			boolean varArgs = cmd.isVarArgs();
+			badVarArgArray = st.varArgArray && !varArgs;
+			badArgCount = st.args.length != count && !(varArgs && st.args.length >= count - 1 && !st.varArgArray);
+			if (badVarArgArray || badArgCount)
+			{
+				args = null;
+				foldable = false;
+				invariant = null;
+			}
+			else
+			{
+				args = new Arg[st.args.length];
+				for (int i = 0; i < args.length; i++)
+					args[i] = new Arg(st, cmd, i);
+				foldable = foldable(cmd, args);
+				invariant = invariant(st, cmd, args);
+			}
+		}
+		
+		// Whether the head names one of the pure built-ins, without running or binding it.
+		static boolean pure(CmdHead head)
+		{
+			if (head.isMemberCmd || head.isInlineFor || head.isInlineWhile || head.isInlineIf)
+				return false;
+			for (Command fold : FOLDABLE)
+				if (fold.name.equals(head.name))
+					return true;
+			return false;
+		}
+		
+		// Pure built-ins whose arguments are all literals give the same result every time, so it's only computed once.
+		private static boolean foldable(Command cmd, Arg[] args)
+		{
+			boolean pure = false;
+			for (Command fold : FOLDABLE)
+				pure |= fold == cmd;
+			if (!pure)
+				return false;
+			for (Arg arg : args)
+			{
+				if (arg.tokens == null)
+					return false;
+				for (Token tok : arg.tokens)
+					if (!tok.literal)
+						return false;
+			}
+			return true;
+		}
+		
+		// Under an inline loop, a pure built-in can't change any variable other than PREV, INDEX and its plain storing targets,
+		// so arguments that don't name any of those resolve the same on every iteration of one run of the loop. An Executable
+		// anywhere on the line, in the heads or any argument, may write any variable when it runs, so then nothing is kept.
+		private static boolean[] invariant(Statement st, Command cmd, Arg[] args)
+		{
+			CmdHead head = st.head;
+			if (!(head.isInlineFor || head.isInlineWhile) || !pure(cmd))
+				return null;
+			if (runsCode(head.inlineIf) || runsCode(head.inlineFor) || runsCode(head.inlineWhile))
+				return null;
+			for (String arg : st.args)
+				if (runsCode(arg))
+					return null;
+			HashSet<String> written = new HashSet<>();
+			written.add(Scajl.PREVIOUS);
+			written.add(Scajl.INDEX);
+			for (String store : head.storing)
+			{
+				if (!isPlainName(store))
+					return null;
+				written.add(store);
+			}
+			boolean[] invariant = new boolean[args.length];
+			boolean any = false;
+			for (int i = 0; i < args.length; i++)
+			{
+				invariant[i] = args[i].tokens != null;
+				for (int t = 0; invariant[i] && t < args[i].tokens.length; t++)
+					invariant[i] = invariant(args[i].tokens[t], written);
+				any |= invariant[i];
+			}
+			return any ? invariant : null;
+		}
+		
+		private static boolean invariant(Token tok, HashSet<String> written)
+		{
+			if (tok.literal || tok.raw)
+				return true;
+			if (tok.token.isEmpty() || "[({\"".indexOf(tok.token.charAt(0)) != -1 || VAR_MODS.indexOf(tok.token.charAt(0)) != -1 || tok.token.indexOf(Scajl.SCOPE_S) != -1)
+				return false;
+			for (String part : Scajl.syntaxedSplit(tok.token, "" + Scajl.ARR_ACCESS))
+				if (written.contains(part) || !isPlainName(part) && !CmdArg.isNumber(part))
+					return false;
+			return true;
+		}
+		
+		private static boolean runsCode(String text)
+		{
+			return text != null && text.indexOf(Scajl.SCOPE_S) != -1;
+		}
+		
+		private static boolean pure(Command cmd)
+		{
+			for (Command fold : FOLDABLE)
+				if (fold == cmd)
+					return true;
+			return false;
+		}
+		
+		// Only plain values are kept, as resolving anything else, such as an Executable, can run code.
+		private static boolean values(ScajlVariable[] vars)
+		{
+			for (ScajlVariable var : vars)
+				if (!(var instanceof SVVal || var instanceof SVString))
+					return false;
+			return true;
+		}
+		
+		// The argument caches on this line, with the inline heads first, in the order they appear.
+		public ArrayList<ArgCache> caches()
+		{
+			ArrayList<ArgCache> caches = new ArrayList<>();
+			for (Value<?> head : new Value<?>[] { inlineIf, inlineWhile, inlineFor })
+				if (head != null && head.cache != null)
+					caches.add(head.cache);
+			if (args != null)
+				for (Arg arg : args)
+					if (arg.cache != null)
+						caches.add(arg.cache);
+			return caches;
+		}
+		
+		// Holds this line's invariant arguments for a single run of its inline loop, or null if it has none.
+		public Loop loop()
+		{
+			return invariant == null ? null : new Loop(args.length);
+		}
+		
+		@Override
+		public RunnableCommand execute(Scajl ctx, SVMember selfCtx)
+		{
+			return execute(ctx, new Bool(false), selfCtx, null);
+		}
+		
+		public RunnableCommand execute(Scajl ctx, Bool breakIf, SVMember selfCtx, Loop loop)
+		{
+			if (cmd == null)
+				ctx.parseExcept("Unknown command", st.head.name);
+			if (cmd.isDisabled())
+				ctx.parseExcept("Disabled command", cmd.name);
+			breakIf.set(breakIf.get() && st.head.isInlineElse);
+			if (breakIf.get() || (inlineIf != null && !inlineIf.execute(ctx, selfCtx)))
+				return null;
+			breakIf.set(true);
+			if (badVarArgArray)
+				ctx.parseExcept("Var-Arg array cannot be specified for non-var-arg commands", st.line, st.args[st.args.length - 1]);
+			if (badArgCount)
+				ctx.parseExcept("Invalid argument count", st.line, st.head.name + " requires " + cmd.args.length + " args, but " + st.args.length + " have been provided. Args are separated by commas.");
+			
+			if (folded != null)
+				return folded;
+			
+			CmdArg<?>[] cargs = cmd.args;
+			Object[] objs = new Object[cargs.length];
+			if (cmd.isVarArgs())
+				objs[objs.length - 1] = Array.newInstance(cargs[cargs.length - 1].cls, args.length - cargs.length + 1);
+			
+			ScajlVariable[][] vars = new ScajlVariable[args.length][];
+			for (int i = 0; i < args.length; i++)
+			{
+				boolean hoist = loop != null && invariant[i];
+				if (hoist && loop.vars[i] != null)
+				{
+					vars[i] = loop.vars[i];
+					args[i].store(objs, loop.objs[i]);
+					continue;
+				}
+				vars[i] = args[i].execute(ctx, selfCtx);
+				Object obj = args[i].parse(vars[i], ctx);
+				args[i].store(objs, obj);
+				if (hoist && values(vars[i]))
+				{
+					loop.vars[i] = vars[i];
+					loop.objs[i] = obj;
+				}
+			}
+			return new Call(this, vars, objs, ctx.tracing());
+		}
+		
+		private void fold(Call call, ScajlVariable out, Scajl ctx)
+		{
+			folded = new Folded(call, ctx.constant(Scajl.SCOPE_S + st.line + Scajl.SCOPE_E, out));
+		}
+		
+		private String input(ScajlVariable[][] vars, Object[] objs)
+		{
+			StringBuilder input = new StringBuilder();
+			for (int i = 0; i < args.length; i++)
+				if (args[i].resolved(objs))
+					input.append(args[i].trimmed(vars[i])).append(i == args.length - 1 ? "" : ", ");
+			return input.toString();
+		}
+	}
+	
+	public static class Loop
+	{
+		private final ScajlVariable[][] vars;
+		private final Object[] objs;
+		
+		private Loop(int args)
+		{
+			vars = new ScajlVariable[args][];
+			objs = new Object[args];
+		}
+	}
+	
+	// The debugger's input String is only built when something is listening for it.
+	private static class Call extends RunnableCommand
+	{
+		private final Exec exec;
+		private final ScajlVariable[][] vars;
+		private final Object[] objs;
+		private String input;
+		
+		private Call(Exec exec, ScajlVariable[][] vars, Object[] objs, boolean tracing)
+		{
+			super(exec.cmd, null, objs);
+			this.exec = exec;
+			this.vars = vars;
+			this.objs = objs;
+			if (tracing)
+				input = exec.input(vars, objs);
+		}
+		
+		@Override
+		public ScajlVariable run(Scajl ctx)
+		{
+			ScajlVariable out = super.run(ctx);
+			if (exec.foldable && out != null)
+				exec.fold(this, out, ctx);
+			return out;
+		}
+		
+		@Override
+		public String getInput()
+		{
+			if (input == null)
+				input = exec.input(vars, objs);
+			return input;
+		}
+	}
+	
+	private static class Folded extends RunnableCommand
+	{
+		private final Call call;
+		private final ScajlVariable out;
+		
+		private Folded(Call call, ScajlVariable out)
+		{
+			super(call.exec.cmd, null);
+			this.call = call;
+			this.out = out;
+		}
+		
+		@Override
+		public ScajlVariable run(Scajl ctx)
+		{
+			return out;
+		}
+		
+		@Override
+		public String getInput()
+		{
+			return call.getInput();
+		}
+	}
+}
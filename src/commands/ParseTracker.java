@@ -23,7 +23,8 @@ public abstract class ParseTracker
 	int count = 0, parseInd = 0;
 	final String tracked;
 	final char escape;
-	String recent = "";
+	final char[] recent;
+	int recentLength = 0;
 	char lastChar;
 	boolean wasInside = false;
 	
@@ -31,6 +32,7 @@ public abstract class ParseTracker
 	{
 		this.tracked = track;
 		this.escape = escape;
+		this.recent = new char[track.length()];
 	}
 	
 	public ParseTracker(char track, char escape)
@@ -53,18 +55,16 @@ public abstract class ParseTracker
 	public void pass(char ch)
 	{
 		wasInside = inside();
-		recent += ch;
-		lastChar = recent.charAt(0);
-		if (recent.length() > tracked.length()) recent = recent.substring(1);
+		lastChar = recentLength == 0 ? ch : recent[0];
+		push(ch);
 		parseInd++;
 	}
 	public void pass(String ch) { pass(ch.charAt(0)); }
 	public void track(char ch)
 	{
 		wasInside = inside();
-		recent += ch;
+		push(ch);
 		lastChar = ch;
-		if (recent.length() > tracked.length()) recent = recent.substring(1);
 		trackSub(ch, parseInd > 0 && lastChar == escape);
 		parseInd++;
 	}
@@ -77,6 +77,24 @@ public abstract class ParseTracker
 			track(ch);
 	}
 	public void track(String ch, boolean pass) { track(ch.charAt(0), pass); }
+	private void push(char ch)
+	{
+		if (recentLength == recent.length)
+		{
+			System.arraycopy(recent, 1, recent, 0, recentLength - 1);
+			recentLength--;
+		}
+		recent[recentLength++] = ch;
+	}
+	protected boolean recentIs(String str)
+	{
+		if (str.length() != recentLength)
+			return false;
+		for (int i = 0; i < recentLength; i++)
+			if (recent[i] != str.charAt(i))
+				return false;
+		return true;
+	}
 	protected abstract void trackSub(char ch, boolean escaped);
 	public abstract boolean inside();
 	public boolean wasInside()
@@ -125,7 +143,7 @@ public abstract class ParseTracker
 		@Override
 		protected void trackSub(char ch, boolean escaped)
 		{
-			if (!escaped && recent.equals(tracked))
+			if (!escaped && recentIs(tracked))
 				count++;
 		}
 		
@@ -148,7 +166,7 @@ public abstract class ParseTracker
 		@Override
 		protected void trackSub(char ch, boolean escaped)
 		{
-			if (!escaped && recent.equals(tracked))
+			if (!escaped && recentIs(tracked))
 				count++;
 			else
 				count = 0;
@@ -178,9 +196,9 @@ public abstract class ParseTracker
 		{
 			if (!escaped)
 			{
-				if (recent.equals(tracked))
+				if (recentIs(tracked))
 					count++;
-				else if (recent.equals(tracked2))
+				else if (recentIs(tracked2))
 					count--;
 			}
 		}
@@ -208,9 +226,9 @@ public abstract class ParseTracker
 		{
 			if (!escaped)
 			{
-				if (recent.equals(tracked))
+				if (recentIs(tracked))
 					count = 1;
-				else if (recent.equals(tracked2))
+				else if (recentIs(tracked2))
 					count = 0;
 			}
 		}
@@ -0,0 +1,38 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package commands;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Counts changes to the registered commands, argument types and Objects, so cached lookups know when to redo themselves.
+// It's kept apart from Scajl and CmdArg so that registering from either doesn't force the other to initialize.
+final class RegistryVersion
+{
+	private static final AtomicInteger VERSION = new AtomicInteger(0);
+	
+	private RegistryVersion() {}
+	
+	static void changed()
+	{
+		VERSION.incrementAndGet();
+	}
+	
+	static int get()
+	{
+		return VERSION.get();
+	}
+}
@@ -24,7 +24,12 @@ import java.awt.Robot;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Array;
@@ -46,8 +51,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.IntPredicate;
@@ -69,12 +78,12 @@ import commands.CmdArg.TypeArg;
 import commands.Command.CommandResult;
 import commands.Command.RunnableCommand;
 import commands.Label.LabelTree;
-import commands.ParseTracker.BoxTracker;
 import commands.ParseTracker.DelimTracker;
 import commands.ParseTracker.MultiTracker;
 import commands.ParseTracker.RepeatTracker;
 import commands.ParseTracker.WrapTracker;
 import commands.ScajlVariable.SVArray;
+import commands.ScajlVariable.SVBuffer;
 import commands.ScajlVariable.SVExec;
 import commands.ScajlVariable.SVJavObj;
 import commands.ScajlVariable.SVMember;
@@ -134,6 +143,17 @@ public class Scajl
 	public static final String HELP_CHAR_STR = "" + HELP_CHAR;
 	public static final String INDEX = "INDEX";
 	public static final int NO_LABEL = -2;
+	private static final int BODY_LINES = 1024;
+	// Executables are usually written into the script, but may be built from strings at run time, so only the most recently used are kept.
+	private static final int EXECUTABLE_CACHE = 512;
+	private static final int PLAIN_NAME_CACHE = 512;
+	// Whole numbers in this range share one immutable value each, made a chunk at a time as they're first used.
+	public static final int INT_CACHE_LOW = Integer.getInteger("scajl.intCacheLow", -128), INT_CACHE_HIGH = Integer.getInteger("scajl.intCacheHigh", 1024);
+	private static final int INT_CHUNK = 1024;
+	private static final AtomicReferenceArray<SVVal[]> INTS = new AtomicReferenceArray<>(Math.max(0, INT_CACHE_HIGH - INT_CACHE_LOW) / INT_CHUNK + 1);
+	public static final boolean DEFAULT_INTERPRETED = Boolean.getBoolean("scajl.interpreted");
+	private static final BiConsumer<String, String> NO_PREV = (cmd, prv) -> {};
+	private static final Debugger NO_DEBUG = (cmd, args, ret) -> {};
 	public static final Label GLOBAL = new Label("GLOBAL", -1, false, true, false);
 	public static final char UNRAW = '%', RAW = '$', REF = '@', RAW_CONTENTS = '&', UNPACK = '^', NO_UNPACK = '|', UNRESOLVED = '*';
 	/** unraw, raw, ref, rcont, unpack, no_unpack, unresolved */
@@ -144,17 +164,19 @@ public class Scajl
 	
 	public static final String LEGAL_ANON_SCOPE_REG_EX = "[\\{\\}]" + LABEL_MODS_REG.substring(0, LABEL_MODS_REG.length() - 1) + "*";
 	public static final Pattern LEGAL_ANON_SCOPE_MATCHER = Pattern.compile(LEGAL_ANON_SCOPE_REG_EX);
+	private static final Pattern NO_SCOPE = Pattern.compile("\\" + SCOPE_S + "+");
 	
 	public static final String PARENTH_REG_EX = "[" + quote(TOK_S) + quote(TOK_E) + "]";
 	public static final Pattern PARENTH_MATCHER = Pattern.compile(PARENTH_REG_EX);
 	
-	public static final String BOOL = "boolean", VOID = "void", TOKEN = "token", TOKEN_ARR = ARR_S + TOKEN + ARR_E, STRING = "String", INT = "int", DOUBLE = "double", VALUE = "Value", OBJECT = "Object", RET_VARIABLE = "Variable";
+	public static final String BOOL = "boolean", VOID = "void", TOKEN = "token", TOKEN_ARR = ARR_S + TOKEN + ARR_E, STRING = "String", INT = "int", DOUBLE = "double", VALUE = "Value", OBJECT = "Object", RET_VARIABLE = "Variable", BUFFER = "Buffer";
 	
 	//////////////// Files
 	public static final String HIDDEN_SCRIPT = "--";
 	private static final String SEP = File.separator;
 	private static String SCRIPT_PATH = "scajl" + SEP;
-	private static String SCRIPT_EXT = ".scajl";
+	static final String SCRIPT_EXT = ".scajl";
+	private static boolean cacheCompiled = Boolean.getBoolean("scajl.cacheCompiled");
 	////////////////
 	
 	public int parseLine = -1;
@@ -166,17 +188,43 @@ public class Scajl
 	private Scajl parent = null;
 	public String path;
 	public String name = "BASE";
-	public final String[] lines;
+	public String[] lines;
+	public Statement[] statements;
+	private int[] owners = null;
+	private final AtomicReference<Scajl> reloaded = new AtomicReference<>();
+	private final LinkedHashMap<String, Statement> executables = new LinkedHashMap<>(16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Statement> eldest)
+		{
+			return size() > EXECUTABLE_CACHE;
+		}
+	};
+	private final HashMap<String, ScajlVariable> constants = new HashMap<>();
+	// Names can also be built at run time, as with concatenated or indexed names, so only the most recently checked are kept.
+	private final LinkedHashMap<String, Boolean> plainNames = new LinkedHashMap<>(16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest)
+		{
+			return size() > PLAIN_NAME_CACHE;
+		}
+	};
 	public final HashMap<Integer, Label> anonScope;
 	private Scanner keyIn;
 	public final Robot rob;
 	private AtomicBoolean forceKill = new AtomicBoolean(false);
 	private Consumer<String> printCallback = (str) -> System.out.println(str);
-	private BiConsumer<String, String> prevCallback = (cmd, prv) -> {};
+	private BiConsumer<String, String> prevCallback = NO_PREV;
 	private Consumer<String> errorCallback = (err) -> printCallback.accept(err);
 	private BiConsumer<ScajlException, String> parseExceptionCallback = (exc, err) -> { exc.printStackTrace(); };
 	private Runnable pollEvents = null;
-	private Debugger debugger = (cmd, args, ret) -> {};
+	private boolean interpreted = DEFAULT_INTERPRETED;
+	private Debugger debugger = NO_DEBUG;
 	private Debugger oldDebug = debugger;
 	private boolean printingDebug = false;
 	private Consumer<Throwable> exceptionCallback = (exc) ->
@@ -200,8 +248,18 @@ public class Scajl
 		Command cmd = new Command(name, ret, desc, args);
 		if (CMDS.put(name, cmd) != null)
 			throw new IllegalArgumentException("Cannot register two commands to the same name: " + name);
+		registryChanged();
 		return cmd;
 	}
+	
+	static void registryChanged()
+	{
+		RegistryVersion.changed();
+	}
+	public static int registryVersion()
+	{
+		return RegistryVersion.get();
+	}
 	public static Command overload(String name, Command other, String differ, ArgTransform transform, CmdArg<?>... args)
 	{
 		return add(name, other.getReturn(), "Overload of " + other.getName() + ": " + other.getDescription() + " - " + differ, args).setFunc((ctx, objs) ->
@@ -338,6 +396,7 @@ public class Scajl
 	public static Command expose(Executable e) { return expose(e, null, SAFE_EXPOSE_FILTER, SAFE_CLASS_EXPOSE_FILTER, false); }
 	private static Command expose(Executable e, ScriptObject<?> to, ExpPredicate filter, ClsPredicate clFilter, boolean recursive)
 	{
+		registryChanged();
 		boolean isM = e instanceof Method;
 		final Method m = isM ? (Method) e : null;
 		final Constructor<?> c = isM ? null : (Constructor<?>) e;
@@ -588,6 +647,7 @@ public class Scajl
 		if (OBJECTS.put(type, so) != null)
 			throw new IllegalArgumentException("Cannot register two ScriptObject types of the same name: " + type);
 		OBJECTS_BY_CLASS.put(cl, so);
+		registryChanged();
 		return so;
 	}
 	
@@ -596,6 +656,7 @@ public class Scajl
 		if (OBJECTS.put(so.getTypeName(), so) != null)
 			throw new IllegalArgumentException("Cannot register two ScriptObject types of the same name: " + so.getTypeName());
 		OBJECTS_BY_CLASS.put(so.argOf().cls, so);
+		registryChanged();
 		return so;
 	}
 	
@@ -735,12 +796,7 @@ public class Scajl
 	{
 		IntVarSet[] sets = (IntVarSet[]) objs[0];
 		for (IntVarSet set : sets)
-		{
-			ScajlVariable[] arr = new ScajlVariable[set.i];
-			Arrays.setAll(arr, (i) -> set.set);
-			
-			ctx.putVar(set.var, new SVArray(arr, null));
-		}
+			ctx.putVar(set.var, SVArray.filled(set.set, set.i));
 		
 		return ctx.prev();
 	}).setVarArgs();
@@ -757,11 +813,11 @@ public class Scajl
 			ScajlVariable[] elements = new ScajlVariable[count];
 			for (int i = 0; i < count; i++)
 			{
-				ctx.putVar(INDEX, numOf(i));
+				ctx.scope.put(INDEX, numOf(i));
 				ctx.runFrom(lab);
 				elements[i] = ctx.getVar(PREVIOUS, false, null);
 			}
-			ctx.putVar(INDEX, numOf(count));
+			ctx.scope.put(INDEX, numOf(count));
 			ctx.putVar(set.var, new SVArray(elements, null));
 		}
 		return ctx.prev();
@@ -857,6 +913,8 @@ public class Scajl
 		String[] vars = (String[]) objs[0];
 		for (String var : vars)
 		{
+			if (CmdArg.isNumber(var))
+				continue;
 			ScajlVariable val = ctx.getVar(var, false, null);
 			if (val == null || CmdArg.DOUBLE.parse(val, ctx) == null)
 				return FALSE;
@@ -1034,6 +1092,49 @@ public class Scajl
 		}
 		return arrOf(outArr);
 	}).setVarArgs();
+	public static final Command BUFFER_NEW = add("buffer", BUFFER, "Returns a Buffer of the given element type (double, long, int or byte) and length, held outside of the Java heap.", CmdArg.TOKEN, CmdArg.LONG).setFunc((ctx, objs) ->
+	{
+		return new SVBuffer(bufferKind((String) objs[0], ctx), bufferLength((long) objs[1], ctx));
+	});
+	public static final Command BUFFER_FILE = add("buffer_file", BUFFER, "Returns a Buffer of the given element type mapped onto the given file, which is created or extended to hold the given length. If the length is null, the whole of the file is used.", CmdArg.STRING, CmdArg.TOKEN, CmdArg.LONG).setFunc((ctx, objs) ->
+	{
+		SVBuffer.Kind kind = bufferKind((String) objs[1], ctx);
+		long len = objs[2] == null ? -1 : bufferLength((long) objs[2], ctx);
+		try
+		{
+			return SVBuffer.map(new File((String) objs[0]), kind, len);
+		}
+		catch (IOException e)
+		{
+			ctx.parseExcept("Unable to map file", (String) objs[0], e.getMessage());
+			return null;
+		}
+	}).nullable(2);
+	public static final Command BUFFER_SLICE = add("buffer_slice", BUFFER, "Returns a Buffer over the elements of the given one from the first index up to the second, which shares them rather than copying them. Negative indices count from the end.", CmdArg.SVBUFFER, CmdArg.LONG, CmdArg.LONG).setFunc((ctx, objs) ->
+	{
+		SVBuffer buf = (SVBuffer) objs[0];
+		long from = (long) objs[1], to = (long) objs[2];
+		if (from < 0)
+			from += buf.length();
+		if (to < 0)
+			to += buf.length();
+		if (from < 0 || to > buf.length() || from > to)
+			ctx.parseExcept("Invalid Buffer slice: " + from + " to " + to, "Index out of bounds.");
+		return buf.slice(from, to);
+	});
+	private static SVBuffer.Kind bufferKind(String name, Scajl ctx)
+	{
+		SVBuffer.Kind kind = SVBuffer.Kind.of(name);
+		if (kind == null)
+			ctx.parseExcept("Invalid Buffer type: " + name, "Buffer elements must be double, long, int or byte.");
+		return kind;
+	}
+	private static long bufferLength(long len, Scajl ctx)
+	{
+		if (len < 0 || len > Long.MAX_VALUE >> 3)
+			ctx.parseExcept("Invalid Buffer length: " + len, "Buffer lengths can't be negative, or larger than can be addressed.");
+		return len;
+	}
 	public static final Command ADD = add("add", RET_VARIABLE, "Adds and returns the argument numbers.", CmdArg.DOUBLE).setFunc((ctx, objs) ->
 	{
 		Object[] arr = (Object[]) objs[0];
@@ -1102,6 +1203,10 @@ public class Scajl
 			out = out && b;
 		return boolOf(out);
 	}).setVarArgs();
+	public static final Command CALC = add("calc", VALUE, "Returns the value of the infix expression, which may use numbers, variables, parentheses, the operators of 'compare' and DoubleExp, and Math functions like sqrt(x) or max(a, b). If the whole expression is a comparison, returns a boolean.", CmdArg.CALC_EXP).setFunc((ctx, objs) ->
+	{
+		return ((CalcExp) objs[0]).value(ctx);
+	});
 	public static final Command COMPARE = add("compare", BOOL, "Returns the evaluation of the boolean expression.", CmdArg.BOOLEAN_EXP_OBJ).setFunc((ctx, objs) ->
 	{
 		return boolOf(((BooleanExp) objs[0]).eval());
@@ -1127,10 +1232,10 @@ public class Scajl
 		int count = (int) objs[0];
 		for (int i = 0; !ctx.forceKill.get() && i < count; i++)
 		{
-			ctx.putVar(INDEX, numOf(i));
+			ctx.scope.put(INDEX, numOf(i));
 			ctx.runFrom((Label) objs[1], (VarSet[]) objs[2]);
 		}
-		ctx.putVar(INDEX, numOf(count));
+		ctx.scope.put(INDEX, numOf(count));
 		return ctx.prev();
 	}).setVarArgs();
 	public static final Command WHILE = add("while", VOID, "While the boolean token (0) is true, excecutes the label (1). Sets variables as provided before each run (2...).", CmdArg.TOKEN, CmdArg.LABEL, CmdArg.VAR_SET).setFunc((ctx, objs) ->
@@ -1139,11 +1244,11 @@ public class Scajl
 		int ind = 0;
 		while (!ctx.forceKill.get() && ctx.valParse(CmdArg.BOOLEAN, ctx.lines[wL], null, (String) objs[0]))
 		{
-			ctx.putVar(INDEX, numOf(ind));
+			ctx.scope.put(INDEX, numOf(ind));
 			ind++;
 			ctx.runFrom((Label) objs[1], (VarSet[]) objs[2]);
 		}
-		ctx.putVar(INDEX, numOf(ind));
+		ctx.scope.put(INDEX, numOf(ind));
 		return ctx.prev();
 	}).rawArg(0).setVarArgs();
 	public static final Command CALL = add("call", VOID, "Excecutes the given token label in a new stack entry. Sets variables to values provided.", CmdArg.LABEL, CmdArg.VAR_SET).setFunc((ctx, objs) ->
@@ -1299,6 +1404,37 @@ public class Scajl
 		Script scr = new Script(ctx, name).imprt((VarSet[]) objs[1]);
 		return objOf(scr);
 	}).setVarArgs();
+	public static final Command LINT = add("lint", INT, "Prints the lines of the given scripts, or of this one if none are given, that slow down more than their loops do. Returns how many were found.", CmdArg.STRING).setFunc((ctx, objs) ->
+	{
+		String[] names = (String[]) objs[0];
+		if (names.length == 0)
+		{
+			ArrayList<Linter.Finding> found = ctx.lint();
+			for (Linter.Finding find : found)
+				ctx.printCallback.accept(find.toString());
+			return numOf(found.size());
+		}
+		int count = 0;
+		for (String name : names)
+		{
+			File scr = getScriptFile(name);
+			if (scr == null)
+				ctx.parseExcept("Specified script does not exist", name);
+			try
+			{
+				for (Linter.Finding found : new Scajl(scr).lint())
+				{
+					ctx.printCallback.accept(name + " | " + found);
+					count++;
+				}
+			}
+			catch (FileNotFoundException | AWTException e)
+			{
+				ctx.getExceptionCallback().accept(e);
+			}
+		}
+		return numOf(count);
+	}).setVarArgs();
 	public static final Command EXIT = add("exit", VOID, "Exits the script runtime.").setFunc((ctx, objs) ->
 	{
 		ctx.forceKill.set(true);
@@ -1530,128 +1666,115 @@ public class Scajl
 		return OBJECTS.containsKey(token);
 	}
 	
-	protected static final DelimTracker QTRACK = new DelimTracker(STRING_CHAR, ESCAPE_CHAR);
-	protected static final BoxTracker
-			ARRTRACK = new BoxTracker(ARR_S, ARR_E, ESCAPE_CHAR),
-			PARTRACK = new BoxTracker(TOK_S, TOK_E, ESCAPE_CHAR),
-			CURLTRACK = new BoxTracker(SCOPE_S, SCOPE_E, ESCAPE_CHAR);
-	protected static final WrapTracker MCOMTRACK = new WrapTracker(MULTILINE_COMMENT_START, MULTILINE_COMMENT_END, ESCAPE_CHAR);
-	protected static final RepeatTracker LCOMTRACK = new RepeatTracker(COMMENT_CHAR, ESCAPE_CHAR, 2);
-	protected static final MultiTracker COMTRACK = new MultiTracker(MCOMTRACK, LCOMTRACK);
-	protected static final MultiTracker SYNTRACK = new MultiTracker(ARRTRACK, CURLTRACK, PARTRACK);
+	private final DelimTracker qTrack = new DelimTracker(STRING_CHAR, ESCAPE_CHAR);
+	private final WrapTracker mComTrack = new WrapTracker(MULTILINE_COMMENT_START, MULTILINE_COMMENT_END, ESCAPE_CHAR);
+	private final RepeatTracker lComTrack = new RepeatTracker(COMMENT_CHAR, ESCAPE_CHAR, 2);
+	private final MultiTracker comTrack = new MultiTracker(mComTrack, lComTrack);
 	
-	private static boolean multilineComment = false;
-	private static String stripComments(String line)
+	private boolean multilineComment = false;
+	private String stripComments(String line)
 	{
-		String str = "";
-		QTRACK.reset();
-		COMTRACK.resetIf((tracker) -> tracker != MCOMTRACK || !multilineComment);
+		StringBuilder str = new StringBuilder(line.length());
+		qTrack.reset();
+		comTrack.resetIf((tracker) -> tracker != mComTrack || !multilineComment);
 		for (int i = 0; i < line.length(); i++)
 		{
 			char parse = line.charAt(i);
-			QTRACK.track(parse);
+			qTrack.track(parse);
 			
-			COMTRACK.track(parse, QTRACK.inside());
+			comTrack.track(parse, qTrack.inside());
 			
-			if (!(multilineComment = MCOMTRACK.inside() || MCOMTRACK.wasInside()))
+			if (!(multilineComment = mComTrack.inside() || mComTrack.wasInside()))
 			{
-				if (LCOMTRACK.inside())
-					return str.substring(0, str.length() - 1).trim();
-				str += parse;
+				if (lComTrack.inside())
+				{
+					str.setLength(str.length() - 1);
+					return str.toString().trim();
+				}
+				str.append(parse);
 			}
-			else if (!MCOMTRACK.wasInside())
-				str = str.substring(0, str.length() - 1);
+			else if (!mComTrack.wasInside())
+				str.setLength(str.length() - 1);
 		}
-		return str.trim();
+		return str.toString().trim();
 	}
 	private static boolean syntaxCheck(String line)
 	{
 		if (LEGAL_ANON_SCOPE_MATCHER.matcher(line).matches())
 			return true;
-		QTRACK.reset();
-		SYNTRACK.reset();
-		for (int i = 0; i < line.length(); i++)
-		{
-			char parse = line.charAt(i);
-			QTRACK.track(parse);
-			SYNTRACK.track(parse, QTRACK.inside());
-		}
-		return !(QTRACK.inside() || SYNTRACK.insideOne());
+		Lexer lex = new Lexer(line.toCharArray());
+		lex.skip();
+		return !lex.nested();
 	}
 	public static String[] syntaxedSplit(String toSplit, char delim)
 	{
-		return syntaxedSplit(toSplit, "" + delim);
+		return syntaxedSplit(toSplit, Delimiter.of(delim), -1);
 	}
 	public static String[] syntaxedSplit(String toSplit, String delim)
 	{
-		return syntaxedSplit(toSplit, quote(delim), delim.length(), -1);
+		return syntaxedSplit(toSplit, Delimiter.of(delim), -1);
 	}
 	public static String[] syntaxedSplit(String toSplit, String delim, int limit)
 	{
-		return syntaxedSplit(toSplit, quote(delim), delim.length(), limit);
+		return syntaxedSplit(toSplit, Delimiter.of(delim), limit);
 	}
 	public static boolean syntaxedContains(String toCheck, String regEx, int trackLength)
 	{
-		Pattern pat = Pattern.compile(regEx);
-		QTRACK.reset();
-		SYNTRACK.reset();
-		
-		String recent = "";
-		for (int i = 0; i < toCheck.length(); i++)
+		return syntaxedContains(toCheck, Delimiter.regex(regEx, trackLength));
+	}
+	public static boolean syntaxedContains(String toCheck, char delim)
+	{
+		return syntaxedContains(toCheck, Delimiter.of(delim));
+	}
+	public static boolean syntaxedContains(String toCheck, Delimiter delim)
+	{
+		char[] chars = toCheck.toCharArray();
+		Lexer lex = new Lexer(chars);
+		while (lex.hasNext())
 		{
-			char parse = toCheck.charAt(i);
-			
-			QTRACK.track(parse);
-			SYNTRACK.track(parse, QTRACK.inside());
-			
-			recent += parse;
-			if (recent.length() > trackLength)
-				recent = recent.substring(1);
-			if (!QTRACK.inside() && !SYNTRACK.insideOne() && pat.matcher(recent).matches())
+			lex.next();
+			if (!lex.nested() && delim.matches(chars, lex.index()))
 				return true;
 		}
 		return false;
 	}
 	public static String[] syntaxedSplit(String toSplit, String regEx, int trackLength, int limit)
 	{
-		Pattern pat = Pattern.compile(regEx);
-		QTRACK.reset();
-		SYNTRACK.reset();
+		return syntaxedSplit(toSplit, Delimiter.regex(regEx, trackLength), limit);
+	}
+	public static String[] syntaxedSplit(String toSplit, Delimiter delim, int limit)
+	{
+		char[] chars = toSplit.toCharArray();
+		Lexer lex = new Lexer(chars);
 		
 		ArrayList<String> out = new ArrayList<>();
 		
-		String building = "";
-		String recent = "";
+		int building = 0;
 		int found = 1;
-		for (int i = 0; i < toSplit.length(); i++)
+		while (lex.hasNext())
 		{
-			char parse = toSplit.charAt(i);
-			
-			QTRACK.track(parse);
-			SYNTRACK.track(parse, QTRACK.inside());
+			lex.next();
+			int i = lex.index();
 			
+			int to = i + 1;
 			boolean push = false;
-			recent += parse;
-			if (recent.length() > trackLength)
-				recent = recent.substring(1);
-			if ((limit > 0 && found >= limit) || !pat.matcher(recent).matches() || QTRACK.inside() || SYNTRACK.insideOne())
-			{
-				building += parse;
-				
-				if (i == toSplit.length() - 1)
-					push = true;
-			}
+			if ((limit > 0 && found >= limit) || lex.nested() || !delim.matches(chars, i))
+				push = i == chars.length - 1;
 			else
 			{
 				push = true;
-				building = building.substring(0, building.length() - trackLength + 1);
+				to = Math.max(building, i - delim.length + 1);
 			}
 			
-			if (push && !((building = building.trim()).isEmpty()))
+			if (push)
 			{
-				out.add(building);
-				building = "";
-				found++;
+				String piece = Lexer.trimmed(chars, building, to);
+				if (!piece.isEmpty())
+				{
+					out.add(piece);
+					found++;
+				}
+				building = i + 1;
 			}
 		}
 		return out.toArray(new String[out.size()]);
@@ -1662,8 +1785,26 @@ public class Scajl
 	}
 	public static SVVal numOf(double num)
 	{
+		// -0.0 is written differently from 0.0, so it isn't shared.
+		if (num >= INT_CACHE_LOW && num <= INT_CACHE_HIGH && (int) num == num && (num != 0 || 1 / num > 0))
+			return intOf((int) num);
 		return new SVVal(num, null);
 	}
+	private static SVVal intOf(int num)
+	{
+		int at = num - INT_CACHE_LOW;
+		SVVal[] chunk = INTS.get(at / INT_CHUNK);
+		if (chunk == null)
+		{
+			chunk = new SVVal[INT_CHUNK];
+			int first = num - at % INT_CHUNK;
+			for (int i = 0; i < INT_CHUNK && first + i <= INT_CACHE_HIGH; i++)
+				chunk[i] = new SVVal(first + i, null).share();
+			if (!INTS.compareAndSet(at / INT_CHUNK, null, chunk))
+				chunk = INTS.get(at / INT_CHUNK);
+		}
+		return chunk[at % INT_CHUNK];
+	}
 	public static SVVal valOf(String val)
 	{
 		return new SVVal(val, null);
@@ -1687,44 +1828,36 @@ public class Scajl
 			svarr[i] = valOf(arr[i]);
 		return arrOf(svarr);
 	}
+	// The given array is held directly, not copied.
 	public static SVArray arrOf(double... arr)
 	{
-		ScajlVariable[] svarr = new ScajlVariable[arr.length];
-		for (int i = 0; i < arr.length; i++)
-			svarr[i] = numOf(arr[i]);
-		return arrOf(svarr);
+		return new SVArray(arr, null);
 	}
 	public static String[] argsOf(String line)
 	{
-		String[] spl = syntaxedSplit(line.trim(), "\\s", 1, 2);
-		if (spl.length == 2)
-			line = spl[1];
-		else
+		char[] chars = line.toCharArray();
+		int start = Lexer.trimStart(chars, 0, chars.length), end = Lexer.trimEnd(chars, start, chars.length);
+		Lexer lex = new Lexer(chars, start, end).separators(Lexer.WHITESPACE);
+		int kind;
+		while ((kind = lex.nextSpan()) != Lexer.END && kind != Lexer.SEPARATOR);
+		if (kind == Lexer.END)
 			return new String[0];
-			
+		
 		ArrayList<String> args = new ArrayList<String>();
 		
-		String arg = "";
-		QTRACK.reset();
-		SYNTRACK.reset();
-		for (int i = 0; i < line.length(); i++)
+		int arg = Lexer.trimStart(chars, lex.spanEnd(), end);
+		lex = new Lexer(chars, arg, end).separators(",");
+		while ((kind = lex.nextSpan()) != Lexer.END)
 		{
-			char parseChar = line.charAt(i);
-			
-			QTRACK.track(parseChar);
-			SYNTRACK.track(parseChar, QTRACK.inside());
-			boolean buildingArg = (QTRACK.inside() || SYNTRACK.insideOne() || parseChar != ',');
-			
-			if (buildingArg)
-				arg += parseChar;
-			else if (!arg.trim().isEmpty())
+			if (kind == Lexer.SEPARATOR)
 			{
-				args.add(arg.trim());
-				arg = "";
+				String trimmed = Lexer.trimmed(chars, arg, lex.spanStart());
+				if (!trimmed.isEmpty())
+					args.add(trimmed);
+				arg = lex.spanEnd();
 			}
-			if (i == line.length() - 1)
-				args.add(arg.trim());
 		}
+		args.add(Lexer.trimmed(chars, arg, end));
 		
 		return args.toArray(new String[args.size()]);
 	}
@@ -1732,34 +1865,26 @@ public class Scajl
 	{
 		ArrayList<String> access = new ArrayList<String>();
 		
-		String str = token.trim();
+		char[] chars = token.toCharArray();
+		int start = Lexer.trimStart(chars, 0, chars.length);
+		Lexer lex = new Lexer(chars, start, Lexer.trimEnd(chars, start, chars.length)).separators("" + ARR_ACCESS);
 		
-		String acc = "";
-		QTRACK.reset();
-		SYNTRACK.reset();
-		for (int i = 0; i < str.length(); i++)
+		StringBuilder acc = new StringBuilder();
+		while (lex.hasNext())
 		{
-			char parse = str.charAt(i);
-			
-			QTRACK.track(parse);
-			SYNTRACK.track(parse, QTRACK.inside());
-			
-			boolean inWord = parse != ARR_ACCESS;
-			boolean buildingAcc = inWord || QTRACK.inside() || SYNTRACK.insideOne();
-			
-			if (buildingAcc)
+			if (lex.next() != Lexer.SEPARATOR)
 			{
-				if (!(PARTRACK.justEntered() || PARTRACK.justLeft()))
-					acc += parse;
+				if (!lex.groupToggled())
+					acc.append(lex.current());
 			}
-			else if (!acc.isEmpty())
+			else if (acc.length() > 0)
 			{
-				access.add(acc);
-				acc = "";
+				access.add(acc.toString());
+				acc.setLength(0);
 			}
-			if (i == str.length() - 1 && !acc.isEmpty())
-				access.add(acc);
 		}
+		if (acc.length() > 0)
+			access.add(acc.toString());
 		
 		return access.toArray(new String[access.size()]);
 	}
@@ -1767,65 +1892,54 @@ public class Scajl
 	{
 		ArrayList<String> tokens = new ArrayList<String>();
 		
-		String str = call.trim();
-		
-		String tok = "";
+		char[] chars = call.toCharArray();
+		int start = Lexer.trimStart(chars, 0, chars.length);
+		Lexer lex = new Lexer(chars, start, Lexer.trimEnd(chars, start, chars.length));
 		
-		QTRACK.reset();
-		SYNTRACK.reset();
-		for (int i = 0; i < str.length(); i++)
-		{
-			char parse = str.charAt(i);
-			QTRACK.track(parse);
-			SYNTRACK.track(parse, QTRACK.inside());
-			
-			if (parse != TOK_S || QTRACK.inside() || (SYNTRACK.insideOne() && !PARTRACK.justEntered()))
-				tok += parse;
-			else if (!tok.trim().isEmpty())
+		StringBuilder tok = new StringBuilder();
+		while (lex.hasNext())
+		{
+			lex.next();
+			char parse = lex.current();
+			if (parse != TOK_S || lex.quoted() || (lex.nested() && !lex.groupEntered()))
+				tok.append(parse);
+			else if (!Lexer.isBlank(tok))
 			{
-				tokens.add(tok);
-				tok = "";
+				tokens.add(tok.toString());
+				tok.setLength(0);
 			}
-			if (i == str.length() - 1 && !tok.trim().isEmpty())
-				tokens.add(tok);
 		}
+		if (!Lexer.isBlank(tok))
+			tokens.add(tok.toString());
 		return tokens.toArray(new String[tokens.size()]);
 	}
 	public static String[] tokensOf(String line)
 	{
 		ArrayList<String> tokens = new ArrayList<String>();
 		
-		String str = line.trim();
+		char[] chars = line.toCharArray();
+		int start = Lexer.trimStart(chars, 0, chars.length), end = Lexer.trimEnd(chars, start, chars.length);
+		Lexer lex = new Lexer(chars, start, end).separators(" ," + ARR_SEP);
 		
-		String tok = "";
-		QTRACK.reset();
-		SYNTRACK.reset();
-		for (int i = 0; i < str.length(); i++)
+		int tok = start;
+		int kind;
+		while ((kind = lex.nextSpan()) != Lexer.END)
 		{
-			char parseChar = str.charAt(i);
-
-			QTRACK.track(parseChar);
-			SYNTRACK.track(parseChar, QTRACK.inside());
-			
-			boolean inWord = parseChar != ' ' && parseChar != ',' && parseChar != ARR_SEP;
-			boolean buildingToken = inWord || QTRACK.inside() || SYNTRACK.insideOne();
-			
-			if (buildingToken)
-				tok += parseChar;
-			else if (!tok.isEmpty())
+			if (kind == Lexer.SEPARATOR)
 			{
-				tokens.add(tok);
-				tok = "";
+				if (lex.spanStart() > tok)
+					tokens.add(new String(chars, tok, lex.spanStart() - tok));
+				tok = lex.spanEnd();
 			}
-			if (i == str.length() - 1 && !tok.isEmpty())
-				tokens.add(tok);
 		}
+		if (end > tok)
+			tokens.add(new String(chars, tok, end - tok));
 		
 		return tokens.toArray(new String[tokens.size()]);
 	}
 	public static String firstToken(String line)
 	{
-		return syntaxedSplit(line, "\\s", 1, 2)[0];
+		return syntaxedSplit(line, Delimiter.WHITESPACE, 2)[0];
 	}
 	public static boolean endsLabel(String line)
 	{
@@ -1844,11 +1958,11 @@ public class Scajl
 		return out + ARR_E;
 	}
 	
-	private static boolean startsWith(String str, char c)
+	static boolean startsWith(String str, char c)
 	{
 		return str.length() > 0 && str.charAt(0) == c;
 	}
-	private static boolean endsWith(String str, char c)
+	static boolean endsWith(String str, char c)
 	{
 		return str.length() > 0 && str.charAt(str.length() - 1) == c;
 	}
@@ -1914,6 +2028,26 @@ public class Scajl
 		ScajlVariable.putVar(input, var, this);
 	}
 	
+	// A plain name is one that is put to and looked up as-is, with no member access, modifiers or validation needed.
+	boolean isPlainName(String name)
+	{
+		Boolean plain = plainNames.get(name);
+		if (plain == null)
+			plainNames.put(name, plain = Node.isPlainName(name));
+		return plain;
+	}
+	
+	ScajlVariable constant(String key, ScajlVariable var)
+	{
+		ScajlVariable pooled = constants.get(key);
+		if (pooled != null)
+			return pooled;
+		if (var != TRUE && var != FALSE)
+			var.shared = true;
+		constants.put(key, var);
+		return var;
+	}
+	
 	public <T> T valParse(CmdArg<T> arg, String line, SVMember selfCtx, String... tokens)
 	{
 		return valParse(arg, line, (i) -> false, selfCtx, tokens);
@@ -1978,109 +2112,125 @@ public class Scajl
 		SCRIPT_PATH = StringUtils.endWith(path, SEP);
 	}
 	
+	static File scriptDir()
+	{
+		return new File(SCRIPT_PATH);
+	}
+	
+	public static void setCacheCompiled(boolean cache)
+	{
+		cacheCompiled = cache;
+	}
+	
 	public static File getScriptFile(String unraw)
 	{
-		File scr = new File(SCRIPT_PATH + StringUtils.endWith(StringUtils.startWithout(unraw, HIDDEN_SCRIPT), SCRIPT_EXT));
-		if (!scr.exists())
-		{
-			scr = new File(SCRIPT_PATH + StringUtils.endWith(StringUtils.startWith(unraw, HIDDEN_SCRIPT), SCRIPT_EXT));
-			if (!scr.exists())
-				return null;
-		}
+		File scr = getScriptFile(new File(SCRIPT_PATH + StringUtils.endWith(StringUtils.startWithout(unraw, HIDDEN_SCRIPT), SCRIPT_EXT)));
+		if (scr == null)
+			scr = getScriptFile(new File(SCRIPT_PATH + StringUtils.endWith(StringUtils.startWith(unraw, HIDDEN_SCRIPT), SCRIPT_EXT)));
 		return scr;
 	}
+	static File getScriptFile(File scr)
+	{
+		File compiled = CompiledScript.compiledFor(scr);
+		if (CompiledScript.isValid(compiled, scr))
+			return compiled;
+		return scr.exists() ? scr : null;
+	}
+	
+	public static File precompile(File script) throws IOException, AWTException
+	{
+		File to = CompiledScript.compiledFor(script);
+		CompiledScript.write(new Scajl(new Scanner(script)), script, to);
+		return to;
+	}
 	
 	
-	private RunnableCommand parse(String line, CmdHead head, Bool breakIf, SVMember selfCtx)
+	private RunnableCommand parse(Statement st, Bool breakIf, SVMember selfCtx)
 	{
-		String[] argStrs = argsOf(line);
-		if (line.length() > 0)
+		String line = st.line;
+		CmdHead head = st.head;
+		String[] argStrs = st.args;
+		Command cmd = st.command(this);
+		if (cmd != null)
 		{
-			Command cmd = getCommand(head);
-			if (cmd != null)
+			if (cmd.isDisabled())
+				parseExcept("Disabled command", cmd.name);
+			breakIf.set(breakIf.get() && head.isInlineElse);
+			if (!breakIf.get() && (head.isInlineIf ? valParse(CmdArg.BOOLEAN, line, selfCtx, head.inlineIf) : true))
 			{
-				if (cmd.isDisabled())
-					parseExcept("Disabled command", cmd.name);
-				breakIf.set(breakIf.get() && head.isInlineElse);
-				if (!breakIf.get() && (head.isInlineIf ? valParse(CmdArg.BOOLEAN, line, selfCtx, head.inlineIf) : true))
+				breakIf.set(true);
+				CmdArg<?>[] args = cmd.args;
+				boolean varArgs = cmd.isVarArgs();
+				boolean varArgArray = st.varArgArray;
+				if (varArgArray && !varArgs)
+					parseExcept("Var-Arg array cannot be specified for non-var-arg commands", line, argStrs[argStrs.length]);
+				if (argStrs.length != args.length && !(varArgs && argStrs.length >= args.length - 1 && !varArgArray))
+					parseExcept("Invalid argument count", line, head.name + " requires " + args.length + " args, but " + argStrs.length + " have been provided. Args are separated by commas.");
+				
+				Object[] objs = new Object[args.length];
+				if (varArgs)
+					objs[objs.length - 1] = Array.newInstance(args[args.length - 1].cls, argStrs.length - args.length + 1);
+				
+				String input = "";
+				for (int argInd = 0; argInd < argStrs.length; argInd++)
 				{
-					breakIf.set(true);
-					CmdArg<?>[] args = cmd.args;
-					boolean varArgs = cmd.isVarArgs();
-					boolean varArgArray = argStrs.length > 0 && argStrs[argStrs.length - 1].startsWith(VAR_ARG_STR);
-					if (varArgArray)
-						argStrs[argStrs.length - 1] = argStrs[argStrs.length - 1].substring(1);
-					if (varArgArray && !varArgs)
-						parseExcept("Var-Arg array cannot be specified for non-var-arg commands", line, argStrs[argStrs.length]);
-					if (argStrs.length != args.length && !(varArgs && argStrs.length >= args.length - 1 && !varArgArray))
-						parseExcept("Invalid argument count", line, head.name + " requires " + args.length + " args, but " + argStrs.length + " have been provided. Args are separated by commas.");
+					boolean atVA = varArgs && argInd >= args.length - 1;
+					boolean firstVarArg = varArgs && argInd == args.length - 1;
+					int varArgInd = Math.min(argInd, args.length - 1);
+					
+					if (!firstVarArg && argStrs[argInd].startsWith(VAR_ARG_STR))
+						parseExcept("Invalid argument", line, "Only the last argument in var-args commands may use the var-arg array modifier '" + VAR_ARG_STR + "'");
+					
+					CmdArg<?> arg = args[varArgInd];
+					final CmdArg<?> origArg = arg;
+					
+					String tokenSourceStr = st.tokenStrs[argInd];
+					Object[] preParse = st.preParse(argInd, this);
 					
-					Object[] objs = new Object[args.length];
-					if (varArgs)
-						objs[objs.length - 1] = Array.newInstance(args[args.length - 1].cls, argStrs.length - args.length + 1);
+					Object obj = null;
 					
-					String input = "";
-					for (int argInd = 0; argInd < argStrs.length; argInd++)
+					String trimmed = "";
+					if (!atVA || !varArgArray)
 					{
-						boolean atVA = varArgs && argInd >= args.length - 1;
-						boolean firstVarArg = varArgs && argInd == args.length - 1;
-						int varArgInd = Math.min(argInd, args.length - 1);
+						arg = CmdArg.getArgForCount(arg, preParse.length);
+						if (arg == null)
+							parseExcept("Invalid token count for CmdArg format '" + origArg.type + "'", line, "Format requires " + origArg.tokenCount() + " tokens, but " + preParse.length + " have been provided. Tokens are separated by spaces. From tokens: " + tokenSourceStr);
 						
-						if (!firstVarArg && argStrs[argInd].startsWith(VAR_ARG_STR))
-							parseExcept("Invalid argument", line, "Only the last argument in var-args commands may use the var-arg array modifier '" + VAR_ARG_STR + "'");
+						final CmdArg<?> aarg = arg;
+						ScajlVariable[] vars = tokVars((i) -> cmd.rawArg[varArgInd] || aarg.rawToken(i), selfCtx, preParse);
+						trimmed = StringUtils.toString(ArrayUtils.transform(vars, (v) -> v.raw()), "", " ", "");
 						
-						CmdArg<?> arg = args[varArgInd];
-						final CmdArg<?> origArg = arg;
+						obj = arg.parse(vars, 0, this);
 						
-						String[] tokenSource = tokensOf(argStrs[argInd]);
-						String tokenSourceStr = StringUtils.toString(tokenSource, "", " ", "");
-						Object[] preParse = ScajlVariable.preParse(tokenSource, this);
+						if (obj == null && !cmd.nullableArg(varArgInd))
+							parseExcept("Invalid token resolution", trimmed, "Expected type: " + arg.type + ". From tokens: " + tokenSourceStr);
 						
-						Object obj = null;
-						
-						String trimmed = "";
-						if (!atVA || !varArgArray)
-						{
-							arg = CmdArg.getArgForCount(arg, preParse.length);
-							if (arg == null)
-								parseExcept("Invalid token count for CmdArg format '" + origArg.type + "'", line, "Format requires " + origArg.tokenCount() + " tokens, but " + preParse.length + " have been provided. Tokens are separated by spaces. From tokens: " + tokenSourceStr);
-							
-							final CmdArg<?> aarg = arg;
-							ScajlVariable[] vars = tokVars((i) -> cmd.rawArg[varArgInd] || aarg.rawToken(i), selfCtx, preParse);
-							trimmed = StringUtils.toString(ArrayUtils.transform(vars, (v) -> v.raw()), "", " ", "");
-							
-							obj = arg.parse(vars, 0, this);
-							
-							if (obj == null && !cmd.nullableArg(varArgInd))
-								parseExcept("Invalid token resolution", trimmed, "Expected type: " + arg.type + ". From tokens: " + tokenSourceStr);
-							
-							if (!atVA)
-								objs[argInd] = obj;
-							else
-								((Object[]) objs[objs.length - 1])[argInd - args.length + 1] = obj;
-						}
+						if (!atVA)
+							objs[argInd] = obj;
 						else
-						{
-							final CmdArg<?> arrArg = cmd.variadic;
-							ScajlVariable[] vars = tokVars((i) -> false, selfCtx, preParse);
-							obj = arrArg.parse(vars, 0, this);
-							trimmed = vars[0].raw();
-							if (obj == null && !cmd.nullableArg(argInd))
-								parseExcept("Invalid var-arg array resolution", trimmed, "Expected type: " + arrArg.type + ". From tokens: " + tokenSourceStr);
-							
-							objs[objs.length - 1] = obj;
-						}
-						if (obj != null)
-							input += trimmed + (argInd == argStrs.length - 1 ? "" : ", ");
+							((Object[]) objs[objs.length - 1])[argInd - args.length + 1] = obj;
 					}
-	
-					RunnableCommand run = new RunnableCommand(cmd, input, objs);
-					return run;
+					else
+					{
+						final CmdArg<?> arrArg = cmd.variadic;
+						ScajlVariable[] vars = tokVars((i) -> false, selfCtx, preParse);
+						obj = arrArg.parse(vars, 0, this);
+						trimmed = vars[0].raw();
+						if (obj == null && !cmd.nullableArg(argInd))
+							parseExcept("Invalid var-arg array resolution", trimmed, "Expected type: " + arrArg.type + ". From tokens: " + tokenSourceStr);
+						
+						objs[objs.length - 1] = obj;
+					}
+					if (obj != null)
+						input += trimmed + (argInd == argStrs.length - 1 ? "" : ", ");
 				}
+
+				RunnableCommand run = new RunnableCommand(cmd, input, objs);
+				return run;
 			}
-			else
-				parseExcept("Unknown command", head.name);
 		}
+		else
+			parseExcept("Unknown command", head.name);
 		return null;
 	}
 	
@@ -2212,27 +2362,49 @@ public class Scajl
 	}
 	
 	public Scajl(Scanner scan) throws AWTException
+	{
+		this(() -> scan.hasNextLine() ? scan.nextLine() : null, null);
+	}
+	
+	public Scajl(Reader reader) throws AWTException
+	{
+		this(new LineReader(reader), null);
+	}
+	
+	private Scajl(LineSource scan, CompiledScript compiled) throws AWTException
 	{
 		rob = new Robot();
 		rob.setAutoDelay(170);
 		path = null;
-		String str = "";
+		anonScope = new HashMap<>();
+		if (compiled != null)
+		{
+			lines = compiled.lines;
+			statements = compiled.statements;
+			compiled.buildLabels(labelTree, anonScope);
+			putVar(PARENT, ScajlVariable.NULL);
+			return;
+		}
+		ArrayList<String> read = new ArrayList<>();
+		String last = null;
 		int num = 0;
 		int anonScopeId = 0;
-		Pattern noScope = Pattern.compile("\\" + SCOPE_S + "+");
 		multilineComment = false;
-		ArrayList<Integer> merges = new ArrayList<Integer>();
-		anonScope = new HashMap<>();
-		while (scan.hasNextLine())
+		ArrayList<Integer> merges = new ArrayList<Integer>(), labelLines = new ArrayList<Integer>();
+		String line;
+		while ((line = scan.nextLine()) != null)
 		{
-			String line = stripComments(scan.nextLine());
+			line = stripComments(line);
 			if (line.startsWith(LABEL) || line.startsWith(SCOPED_LABEL))
+			{
 				putLabel(firstToken(line), num);
+				labelLines.add(num);
+			}
 			else if (endsLabel(line))
 				labelTree.close();
 			else if (startsWith(line, SCOPE_S) && LEGAL_ANON_SCOPE_MATCHER.matcher(line).matches())
 			{
-				Label anon = new Label(SCOPED_LABEL + noScope.matcher(line).replaceFirst("") + "ANON" + anonScopeId++, num);
+				Label anon = new Label(SCOPED_LABEL + NO_SCOPE.matcher(line).replaceFirst("") + "ANON" + anonScopeId++, num);
 		//		labels.put(anon.name, anon);
 				anonScope.put(num, anon);
 				labelTree.open(anon);
@@ -2243,40 +2415,337 @@ public class Scajl
 				break;
 			else if (line.endsWith(END_SCRIPT))
 			{
-				str += StringUtils.endWithout(line, END_SCRIPT);
+				last = StringUtils.endWithout(line, END_SCRIPT);
 				break;
 			}
 			else if (line.startsWith("" + LINE_MERGE))
 				merges.add(num);
 			
-			str += line.trim() + "\n";
+			read.add(line.trim());
 			num++;
 		}
 		labelTree.close();
-		lines = str.split("\n");
-		for (int i = merges.size() - 1; i >= 0; i--)
+		lines = splitLines(read, last);
+		mergeLines(lines, merges);
+		statements = new Statement[lines.length];
+		int[] bounds = bodyBounds(labelLines, lines.length);
+		AtomicInteger firstBad = new AtomicInteger(lines.length);
+		BodyCompiler compiler = new BodyCompiler(lines, statements, bounds, 0, bounds.length - 1, firstBad);
+		if (bounds.length > 2 && ForkJoinPool.getCommonPoolParallelism() > 1)
+			ForkJoinPool.commonPool().invoke(compiler);
+		else
+			compiler.compute();
+		int bad = firstBad.get();
+		if (bad < lines.length)
+			throw new ScajlException("Invalid syntax at line " + (bad + 1) + ": " + lines[bad] + ". Unfinished delimiter.");
+
+		putVar(PARENT, ScajlVariable.NULL);
+	}
+	
+	// The argument caches of every line that has run, keyed by "line:site", for seeing which sites settle on one type.
+	public LinkedHashMap<String, Node.ArgCache> argCaches()
+	{
+		LinkedHashMap<String, Node.ArgCache> caches = new LinkedHashMap<>();
+		for (int i = 0; i < statements.length; i++)
 		{
-			int m = merges.get(i);
-			String toMerge = lines[m].replaceFirst(quote(LINE_MERGE), "");
-			if (m > 0)
+			Node.Exec node = statements[i] == null ? null : statements[i].bound();
+			if (node == null)
+				continue;
+			ArrayList<Node.ArgCache> line = node.caches();
+			for (int j = 0; j < line.size(); j++)
+				caches.put((i + 1) + ":" + j, line.get(j));
+		}
+		return caches;
+	}
+	
+	public ArrayList<Linter.Finding> lint()
+	{
+		return Linter.lint(this);
+	}
+	
+	// Replaces lines [fromLine, toLine) with the lines of newText. Only the new lines are lexed, and only the Labels around
+	// the edit are made again. The Label tree is only rebuilt if Labels or scopes are added or removed.
+	public void applyEdit(int fromLine, int toLine, String newText)
+	{
+		if (fromLine < 0 || toLine < fromLine || toLine > lines.length)
+			throw new IllegalArgumentException("Invalid edit range: " + fromLine + " to " + toLine + ", of " + lines.length + " lines.");
+		LineReader scan = new LineReader(new StringReader(newText));
+		ArrayList<String> read = new ArrayList<>();
+		ArrayList<Integer> merges = new ArrayList<>();
+		multilineComment = false;
+		String line;
+		while ((line = scan.nextLine()) != null)
+		{
+			line = stripComments(line);
+			if (line.startsWith(END_SCRIPT) || line.endsWith(END_SCRIPT))
+				throw new ScajlException("Invalid edit at line " + (fromLine + read.size() + 1) + ": " + line + ". Edits cannot end the script.");
+			if (line.startsWith("" + LINE_MERGE))
+				merges.add(read.size());
+			read.add(line.trim());
+		}
+		multilineComment = false;
+		if (!merges.isEmpty() && merges.get(0) == 0 && fromLine > 0)
+		{
+			// A leading merge joins onto the line before the edit, so that line is re-lexed too.
+			read.add(0, lines[--fromLine]);
+			merges.replaceAll((m) -> m + 1);
+		}
+		String[] added = read.toArray(new String[read.size()]);
+		mergeLines(added, merges);
+		Statement[] lexed = new Statement[added.length];
+		for (int i = 0; i < added.length; i++)
+		{
+			if (!syntaxCheck(added[i]))
+				throw new ScajlException("Invalid syntax at line " + (fromLine + i + 1) + ": " + added[i] + ". Unfinished delimiter.");
+			lexed[i] = Statement.ofLine(added[i]);
+		}
+		
+		if (owners == null)
+			owners = owners(statements);
+		ArrayList<Integer> around = enclosing(fromLine);
+		int delta = added.length - (toLine - fromLine);
+		if (delta == 0 && !structural(statements, fromLine, toLine) && !structural(lexed, 0, lexed.length))
+		{
+			System.arraycopy(added, 0, lines, fromLine, added.length);
+			System.arraycopy(lexed, 0, statements, fromLine, lexed.length);
+			return;
+		}
+		
+		HashMap<Integer, Label> labels = new HashMap<>();
+		labelsByLine(labelTree, labels);
+		
+		String[] newLines = new String[lines.length + delta];
+		Statement[] newStatements = new Statement[newLines.length];
+		System.arraycopy(lines, 0, newLines, 0, fromLine);
+		System.arraycopy(added, 0, newLines, fromLine, added.length);
+		System.arraycopy(lines, toLine, newLines, fromLine + added.length, lines.length - toLine);
+		System.arraycopy(statements, 0, newStatements, 0, fromLine);
+		System.arraycopy(lexed, 0, newStatements, fromLine, lexed.length);
+		System.arraycopy(statements, toLine, newStatements, fromLine + lexed.length, statements.length - toLine);
+		// Labels that haven't moved and don't hold the edit are kept as they are.
+		HashMap<Integer, Label> kept = new HashMap<>();
+		for (Entry<Integer, Label> lab : labels.entrySet())
+		{
+			int at = lab.getKey();
+			if (!around.contains(at) && (at < fromLine || (at >= toLine && delta == 0)))
+				kept.put(at, lab.getValue());
+		}
+		// The new tree is built once on its own first, so an edit that breaks the Label structure leaves the script as it was.
+		buildLabels(new LabelTree(GLOBAL), newLines, newStatements, kept, new HashMap<>());
+		labelTree.reset();
+		anonScope.clear();
+		buildLabels(labelTree, newLines, newStatements, kept, anonScope);
+		lines = newLines;
+		statements = newStatements;
+		owners = null;
+	}
+	
+	private static void buildLabels(LabelTree tree, String[] lines, Statement[] statements, HashMap<Integer, Label> kept, HashMap<Integer, Label> anonScope)
+	{
+		int anonScopeId = 0;
+		for (int i = 0; i < statements.length; i++)
+		{
+			Statement st = statements[i];
+			if (st.kind == Statement.LABEL)
+			{
+				Label lab = kept.get(i);
+				try
+				{
+					tree.open(lab != null ? lab : new Label(firstToken(lines[i]), i));
+				}
+				catch (IllegalStateException e)
+				{
+					throw new ScajlException("Invalid Label closure at line " + (i - 1) + ". No label to return from. Labels are opened with '--' or '~~'.");
+				}
+			}
+			else if (st.endsLabel)
+				tree.close();
+			else if (st.kind == Statement.SCOPE_OPEN)
 			{
-				lines[m - 1] += " " + toMerge.trim();
+				Label anon = new Label(SCOPED_LABEL + NO_SCOPE.matcher(lines[i]).replaceFirst("") + "ANON" + anonScopeId++, i);
+				anonScope.put(i, anon);
+				tree.open(anon);
+			}
+			else if (st.kind == Statement.SCOPE_CLOSE)
+				tree.close();
+		}
+		tree.close();
+	}
+	
+	private static boolean structural(Statement[] statements, int from, int to)
+	{
+		for (int i = from; i < to; i++)
+			if (statements[i].kind == Statement.LABEL || statements[i].kind == Statement.SCOPE_OPEN || statements[i].kind == Statement.SCOPE_CLOSE || statements[i].endsLabel)
+				return true;
+		return false;
+	}
+	
+	// The lines of the Labels and anonymous scopes still open just before the given line, innermost first.
+	private ArrayList<Integer> enclosing(int line)
+	{
+		ArrayList<Integer> around = new ArrayList<>();
+		if (line == 0)
+			return around;
+		Statement before = statements[line - 1];
+		int at = owners[line - 1];
+		if (before.kind == Statement.LABEL || before.kind == Statement.SCOPE_OPEN)
+			at = line - 1;
+		else if ((before.endsLabel || before.kind == Statement.SCOPE_CLOSE) && at >= 0)
+			at = owners[at];
+		for (; at >= 0; at = owners[at])
+			around.add(at);
+		return around;
+	}
+	
+	// The line of the innermost Label or anonymous scope holding each line, or -1 for the global scope.
+	static int[] owners(Statement[] statements)
+	{
+		int[] owners = new int[statements.length];
+		int current = -1;
+		for (int i = 0; i < statements.length; i++)
+		{
+			owners[i] = current;
+			if (statements[i].kind == Statement.LABEL || statements[i].kind == Statement.SCOPE_OPEN)
+				current = i;
+			else if ((statements[i].endsLabel || statements[i].kind == Statement.SCOPE_CLOSE) && current >= 0)
+				current = owners[current];
+		}
+		return owners;
+	}
+	
+	private static void labelsByLine(LabelTree tree, HashMap<Integer, Label> into)
+	{
+		for (LabelTree sub : tree.subs())
+		{
+			into.put(sub.root.line, sub.root);
+			labelsByLine(sub, into);
+		}
+	}
+	
+	// Queues a freshly compiled copy of this script, which replaces this one's body at its next safe point.
+	void stageReload(Scajl from)
+	{
+		reloaded.set(from);
+	}
+	
+	// Safe points are only between outside calls, so anything already running finishes on the body it started with.
+	void safePoint()
+	{
+		if (reloaded.get() == null || !stack.isEmpty())
+			return;
+		Scajl from = reloaded.getAndSet(null);
+		if (from == null)
+			return;
+		lines = from.lines;
+		statements = from.statements;
+		owners = null;
+		labelTree.adopt(from.labelTree);
+		anonScope.clear();
+		anonScope.putAll(from.anonScope);
+	}
+	
+	// Splits the lines at Label starts into runs of at least BODY_LINES lines, each of which can be compiled on its own.
+	private static int[] bodyBounds(ArrayList<Integer> labelLines, int length)
+	{
+		ArrayList<Integer> bounds = new ArrayList<>();
+		bounds.add(0);
+		for (int start : labelLines)
+			if (start < length && start - bounds.get(bounds.size() - 1) >= BODY_LINES && length - start >= BODY_LINES)
+				bounds.add(start);
+		bounds.add(length);
+		return bounds.stream().mapToInt(Integer::intValue).toArray();
+	}
+	
+	// Syntax checks and lexes a range of bodies. The lowest failing line is kept, so the error is the same no matter how the work was split.
+	private static class BodyCompiler extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final String[] lines;
+		private final Statement[] statements;
+		private final int[] bounds;
+		private final int from, to;
+		private final AtomicInteger firstBad;
+		
+		private BodyCompiler(String[] lines, Statement[] statements, int[] bounds, int from, int to, AtomicInteger firstBad)
+		{
+			this.lines = lines;
+			this.statements = statements;
+			this.bounds = bounds;
+			this.from = from;
+			this.to = to;
+			this.firstBad = firstBad;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (to - from > 1)
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new BodyCompiler(lines, statements, bounds, from, mid, firstBad), new BodyCompiler(lines, statements, bounds, mid, to, firstBad));
+				return;
+			}
+			for (int i = bounds[from]; i < bounds[to] && i < firstBad.get(); i++)
+			{
+				if (!syntaxCheck(lines[i]))
+				{
+					firstBad.accumulateAndGet(i, Math::min);
+					return;
+				}
+				statements[i] = Statement.ofLine(lines[i]);
+			}
+		}
+	}
+	
+	// Matches what splitting the lines joined by '\n' would give: trailing empty lines are dropped, unless there is nothing else.
+	private static String[] splitLines(ArrayList<String> read, String last)
+	{
+		if (read.isEmpty())
+			return new String[] { last == null ? "" : last };
+		if (last != null)
+			read.add(last);
+		int size = read.size();
+		while (size > 0 && read.get(size - 1).isEmpty())
+			size--;
+		return read.subList(0, size).toArray(new String[size]);
+	}
+	
+	// Runs of merged lines are joined onto the line before them in one pass.
+	private static void mergeLines(String[] lines, ArrayList<Integer> merges)
+	{
+		for (int i = 0; i < merges.size();)
+		{
+			int start = merges.get(i), m = start;
+			StringBuilder merged = new StringBuilder();
+			for (; i < merges.size() && merges.get(i) == m; i++, m++)
+			{
+				String part = lines[m].substring(1).trim();
+				if (!part.isEmpty())
+					merged.append(merged.length() == 0 ? "" : " ").append(part);
 				lines[m] = "";
 			}
+			if (start > 0)
+				lines[start - 1] += " " + merged;
 			else
-				lines[m] = toMerge.trim();
+				lines[start] = merged.toString();
 		}
-		for (int i = 0; i < lines.length; i++)
-			if (!syntaxCheck(lines[i]))
-				throw new ScajlException("Invalid syntax at line " + (i + 1) + ": " + lines[i] + ". Unfinished delimiter.");
-
-		putVar(PARENT, ScajlVariable.NULL);
 	}
 	
 	public Scajl(File script) throws FileNotFoundException, AWTException
 	{
-		this(new Scanner(script));
+		this(CompiledScript.isCompiled(script) ? null : new LineReader(new InputStreamReader(new FileInputStream(script))), CompiledScript.isCompiled(script) ? CompiledScript.read(script) : null);
 		this.path = script.getAbsolutePath();
+		if (cacheCompiled && !CompiledScript.isCompiled(script))
+		{
+			try
+			{
+				CompiledScript.write(this, script, CompiledScript.compiledFor(script));
+			}
+			catch (IOException e)
+			{
+				// The cache is only an optimization; the script has loaded from source regardless.
+			}
+		}
 	}
 	
 	public synchronized void setForceKill(AtomicBoolean bool)
@@ -2289,6 +2758,7 @@ public class Scajl
 	}
 	public void run(VarSet... varSets)
 	{
+		safePoint();
 		keyIn = new Scanner(System.in);
 		runFrom(GLOBAL, varSets);
 	}
@@ -2306,27 +2776,27 @@ public class Scajl
 			Bool breakIf = new Bool(false);
 			while(parseLine < lines.length && !stack.isEmpty() && !forceKill.get())
 			{
-				String line = lines[parseLine];
-				if (!line.isEmpty())
+				Statement st = statements[parseLine];
+				if (st.kind != Statement.EMPTY)
 				{
-					if (line.startsWith(LABEL) || line.startsWith(SCOPED_LABEL))
+					if (st.kind == Statement.LABEL)
 						labelsDeep++;
 					else if (labelsDeep == 0)
 					{
-						if (line.equals(HELP_CHAR_STR))
+						if (st.kind == Statement.HELP)
 							PRINT_COMMANDS.func.cmd(this, (Object[]) null);
-						else if (startsWith(line, SCOPE_S) && LEGAL_ANON_SCOPE_MATCHER.matcher(line).matches())
+						else if (st.kind == Statement.SCOPE_OPEN)
 							scope.push(scope.getLast().getLabelTree().getFor(anonScope.get(parseLine)));
-						else if (endsWith(line, SCOPE_E) && LEGAL_ANON_SCOPE_MATCHER.matcher(line).matches())
+						else if (st.kind == Statement.SCOPE_CLOSE)
 							scope.pop();
 						else
 						{
-							CommandResult res = runExecutable(line, breakIf, null);
+							CommandResult res = runExecutable(st, breakIf, null);
 							if (res.shouldBreak)
 								break;
 						}
 					}
-					else if (endsLabel(line))
+					else if (st.endsLabel)
 						labelsDeep--;
 				}
 				parseLine++;
@@ -2347,15 +2817,18 @@ public class Scajl
 	}
 	protected CommandResult runExecutable(String executableLine, SVMember selfCtx)
 	{
-		return runExecutable(executableLine, new Bool(false), selfCtx);
+		Statement st = executables.get(executableLine);
+		if (st == null)
+			executables.put(executableLine, st = Statement.ofExecutable(executableLine));
+		return runExecutable(st, new Bool(false), selfCtx);
 	}
-	private CommandResult runExecutable(String executableLine, Bool breakIf, SVMember selfCtx)
+	private CommandResult runExecutable(Statement st, Bool breakIf, SVMember selfCtx)
 	{
-		String line = executableTrim(executableLine);
-		if (line.isEmpty() || line.startsWith(LABEL) || line.startsWith(SCOPED_LABEL))
+		if (st.kind == Statement.NO_OP)
 			return new CommandResult(prev(), false);
-		String first = firstToken(line);
-		CmdHead head = new CmdHead(first);
+		st.check();
+		String line = st.line;
+		CmdHead head = st.head;
 		if (head.printHelp)
 		{
 			Command command = getCommand(head);
@@ -2378,14 +2851,16 @@ public class Scajl
 		}
 		else
 		{
+			Node.Exec node = interpreted ? null : st.node(this);
+			Node.Loop loop = node != null && (head.isInlineFor || head.isInlineWhile) ? node.loop() : null;
 			int fur = 1;
 			boolean whil = false;
 			if (head.isInlineFor)
-				fur = valParse(CmdArg.INT, line, selfCtx, head.inlineFor);
+				fur = node == null ? valParse(CmdArg.INT, line, selfCtx, head.inlineFor) : node.inlineFor.execute(this, selfCtx);
 			if (head.isInlineWhile)
-				whil = valParse(CmdArg.BOOLEAN, line, selfCtx, head.inlineWhile);
+				whil = inlineWhile(node, st, selfCtx);
 			if (head.isInlineFor || head.isInlineWhile)
-				putVar(INDEX, numOf(0));
+				scope.put(INDEX, numOf(0));
 			for (int f = 0; !forceKill.get() && (f < fur || (head.isInlineWhile && whil));)
 			{
 				Point p = MouseInfo.getPointerInfo().getLocation();
@@ -2394,16 +2869,19 @@ public class Scajl
 					forceKill.set(true);
 					parseExcept("Operation was interrupted by the user", "Mouse was moved to 0 0");
 				}
-				RunnableCommand cmd = parse(line, head, breakIf, selfCtx);
+				RunnableCommand cmd = node == null ? parse(st, breakIf, selfCtx) : node.execute(this, breakIf, selfCtx, loop);
 				if (cmd != null)
 				{
 					ScajlVariable out;
 					putVar(PREVIOUS, out = cmd.run(this));
 					for (int i = 0; i < head.storing.length; i++)
 						putVar(head.storing[i], out);
-					String raw = out.raw();
-					prevCallback.accept(head.name, raw);
-					debugger.info(head.name, cmd.getInput(), raw);
+					if (prevCallback != NO_PREV || tracing())
+					{
+						String raw = out.raw();
+						prevCallback.accept(head.name, raw);
+						debugger.info(head.name, cmd.getInput(), raw);
+					}
 				}
 				if (popped != null) // Popped isn't empty -> something returned. Old stack doesn't return to anything -> end script.
 				{
@@ -2412,15 +2890,25 @@ public class Scajl
 				}
 				f++;
 				if (head.isInlineFor || head.isInlineWhile)
-					putVar(INDEX, numOf(f));				
+					scope.put(INDEX, numOf(f));
 				if (head.isInlineWhile)
-					whil = valParse(CmdArg.BOOLEAN, line, selfCtx, head.inlineWhile);
+					whil = inlineWhile(node, st, selfCtx);
 			}
 			if (head.isInlineFor)
-				putVar(INDEX, numOf(fur));
+				scope.put(INDEX, numOf(fur));
 		}
 		return new CommandResult(prev(), false);
 	}
+	private boolean inlineWhile(Node.Exec node, Statement st, SVMember selfCtx)
+	{
+		if (node == null)
+			return valParse(CmdArg.BOOLEAN, st.line, selfCtx, st.head.inlineWhile);
+		return node.inlineWhile.execute(this, selfCtx);
+	}
+	boolean tracing()
+	{
+		return debugger != NO_DEBUG;
+	}
 	public void goTo(String label)
 	{
 		Label lab = getLabel(label);
@@ -2468,7 +2956,8 @@ public class Scajl
 	
 	public ScajlVariable prev()
 	{
-		return getVar(PREVIOUS, false, null);
+		ScajlVariable prev = scope.get(PREVIOUS);
+		return prev != null ? prev : new SVVal(PREVIOUS, PREVIOUS, null);
 	}
 	public static String arrayTrim(String token)
 	{
@@ -2537,7 +3026,7 @@ public class Scajl
 	public Label getLabel(String label)
 	{
 		StackEntry ent = stack.peek();
-		LabelTree tree = ent != null ? ent.to.getFor(label.replaceFirst(LABEL_REG, "")) : labelTree.getFor(label);
+		LabelTree tree = ent != null ? ent.to.resolve(label) : labelTree.getFor(label);
 		return tree == null ? null : tree.root;
 	}
 	
@@ -2604,6 +3093,11 @@ public class Scajl
 		this.pollEvents = poll;
 	}
 	
+	public void setInterpreted(boolean interpreted)
+	{
+		this.interpreted = interpreted;
+	}
+	
 	public void setUserReqestType(UserReqType reqType)
 	{
 		this.userRequestType = reqType;
@@ -2697,6 +3191,72 @@ public class Scajl
 	
 	//////////////////////
 	
+	private static interface LineSource
+	{
+		public String nextLine();
+	}
+	
+	// Splits lines on the same separators as Scanner.nextLine, in a single pass over the Reader.
+	private static class LineReader implements LineSource
+	{
+		private final Reader in;
+		private final char[] buf = new char[8192];
+		private final StringBuilder line = new StringBuilder();
+		private int pos = 0, len = 0;
+		private boolean done = false;
+		
+		private LineReader(Reader in)
+		{
+			this.in = in;
+		}
+		
+		private int read()
+		{
+			if (pos == len)
+			{
+				if (done)
+					return -1;
+				try
+				{
+					len = in.read(buf);
+					pos = 0;
+					if (len <= 0)
+					{
+						len = 0;
+						done = true;
+						in.close();
+						return -1;
+					}
+				}
+				catch (IOException e)
+				{
+					throw new ScajlException("Unable to read script: " + e.getMessage());
+				}
+			}
+			return buf[pos++];
+		}
+		
+		@Override
+		public String nextLine()
+		{
+			line.setLength(0);
+			int c;
+			while ((c = read()) != -1)
+			{
+				if (c == '\r')
+				{
+					if ((c = read()) != '\n' && c != -1)
+						pos--;
+					return line.toString();
+				}
+				if (c == '\n' || c == '\u2028' || c == '\u2029' || c == '\u0085')
+					return line.toString();
+				line.append((char) c);
+			}
+			return line.length() == 0 ? null : line.toString();
+		}
+	}
+	
 	public static class ScajlException extends RuntimeException
 	{
 		private static final long serialVersionUID = 1L;
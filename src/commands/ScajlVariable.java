@@ -16,21 +16,29 @@
 
 package commands;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
-import java.util.regex.Pattern;
 
 import annotations.ScajlClone;
-import commands.ParseTracker.BoxTracker;
-import commands.ParseTracker.DelimTracker;
 import group.MixedPair;
 import utilities.ArrayUtils;
 import utilities.ArrayUtils.Ind;
@@ -40,21 +48,29 @@ import utilities.StringUtils;
 public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 {
 	public static final SVVal NULL = new SVVal(Scajl.NULL, null);
+	private static final WeakReference<SVMember> NO_SELF = new WeakReference<>(null);
 	
 	///////////////////////////
 	
 	protected String input, modless;
 	protected WeakReference<SVMember> selfCtx;
+	// Set on values held by a script's constant pool, which every use of the same literal shares.
+	boolean shared = false;
 	
 	public ScajlVariable(String input, String modless, SVMember selfCtx)
 	{
 		this.input = input;
 		this.modless = modless;
-		this.selfCtx = new WeakReference<>(selfCtx);
+		this.selfCtx = selfCtx == null ? NO_SELF : new WeakReference<>(selfCtx);
 	}
 	
 	public abstract String type();
 	
+	protected String input()
+	{
+		return input;
+	}
+	
 	public abstract String val(Scajl ctx);
 	public abstract ScajlVariable eval(Scajl ctx);
 	public abstract String raw();
@@ -92,6 +108,8 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 	}
 	protected ScajlVariable setSelf(SVMember selfCtx)
 	{
+		if (shared)
+			return clone().setSelf(selfCtx);
 		this.selfCtx = new WeakReference<SVMember>(selfCtx);
 		return this;
 	}
@@ -141,19 +159,64 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 	
 	public static class SVVal extends ScajlVariable
 	{
+		private static final Double NOT_NUMBER = Double.valueOf(Double.NaN);
+		// The value as a number, NOT_NUMBER if it isn't one, or null until it's first read.
+		private Double num;
+		// Whether the text is the number's own Double.toString form, as for values made from a double.
+		private boolean plain;
+		
 		public SVVal(String input, String modless, SVMember selfCtx)
 		{
-			super(input, modless, selfCtx);
+			this(input, modless, null, selfCtx);
 		}
 		
 		public SVVal(String inputModless, SVMember selfCtx)
 		{
-			this(inputModless, inputModless, null);
+			this(inputModless, inputModless, null, null);
 		}
 		
+		// Numbers are only written out as text once something reads them that way.
 		public SVVal(double val, SVMember selfCtx)
 		{
-			this("" + val, selfCtx);
+			this(null, null, val, null);
+			plain = true;
+		}
+		
+		private SVVal(String input, String modless, Double num, SVMember selfCtx)
+		{
+			super(input, modless, selfCtx);
+			this.num = num;
+		}
+		
+		private String text()
+		{
+			if (modless == null)
+			{
+				modless = Double.toString(num);
+				input = modless;
+			}
+			return modless;
+		}
+		
+		// Fills in the text and number now, so a value shared between threads isn't written to after it's handed out.
+		SVVal share()
+		{
+			text();
+			num();
+			shared = true;
+			return this;
+		}
+		
+		// The value as a number, or null if it isn't one. It is only parsed the first time.
+		public Double num()
+		{
+			Double n = num;
+			if (n == null)
+			{
+				n = CmdArg.dumbParse(modless);
+				num = n = n == null ? NOT_NUMBER : n;
+			}
+			return n == NOT_NUMBER ? null : n;
 		}
 		
 		@Override
@@ -162,10 +225,17 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 			return Scajl.VALUE;
 		}
 		
+		@Override
+		protected String input()
+		{
+			text();
+			return input;
+		}
+		
 		@Override
 		public String val(Scajl ctx)
 		{
-			return modless;
+			return text();
 		}
 
 		@Override
@@ -177,13 +247,13 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		@Override
 		public String raw()
 		{
-			return modless;
+			return text();
 		}
 		
 		@Override
 		public boolean test(ScajlVariable other, Scajl ctx)
 		{
-			if (modless.equals("null"))
+			if (text().equals("null"))
 				return true;
 			boolean t = other instanceof SVVal && other != NULL;
 			if (!t)
@@ -207,7 +277,9 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		@Override
 		public SVVal clone()
 		{
-			return new SVVal(input, modless, selfCtx.get());
+			SVVal clone = new SVVal(input, modless, num, selfCtx.get());
+			clone.plain = plain;
+			return clone;
 		}
 		
 		@Override
@@ -215,7 +287,10 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		{
 			if (!(other instanceof SVVal))
 				return false;
-			return ((SVVal) other).modless.equals(modless);
+			SVVal oth = (SVVal) other;
+			if (modless == null && oth.modless == null)
+				return num.equals(oth.num);
+			return oth.text().equals(text());
 		}
 
 /*		@Override
@@ -376,7 +451,7 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		public boolean equals(Object other)
 		{
 			if (other instanceof SVVal)
-				return ((SVVal) other).modless.equals(unraw);
+				return ((SVVal) other).raw().equals(unraw);
 			if (!(other instanceof SVString))
 				return false;
 			return ((SVString) other).unraw.equals(unraw);
@@ -410,7 +485,7 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		{
 			super(input, modless, selfCtx);
 			value = val;
-			typeCount = new SVVal(val.length, null);
+			typeCount = Scajl.numOf(val.length);
 		}
 		
 		public SVJavObj(Object val)
@@ -704,11 +779,7 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 						if (!map.containsKey(accVal))
 							return NULL;
 						return map.get(accVal);
-					}, (var) ->
-					{
-						map.put(accVal, var);
-						var.selfCtx = new WeakReference<>(this);
-					});
+					}, (var) -> map.put(accVal, var.setSelf(this)));
 			}
 			if (!map.containsKey(accVal))
 				ctx.parseExcept("Invalid Map key for continued indexing: " + accVal, "The specified key is missing.", "From access: " + StringUtils.toString(memberAccess, "", "" + Scajl.ARR_ACCESS, ""));
@@ -972,7 +1043,14 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 	
 	public static class SVArray extends SVMember
 	{
+		private static final int GENERIC = 0, DOUBLE = 1, LONG = 2, BOOLEAN = 3;
+		private static final long EXACT_LONG = 1L << 53;
+		
 		protected ScajlVariable[] array;
+		// The double[], long[] or boolean[] holding the elements while they're all plain values of that kind, in which case array is null.
+		private Object prims;
+		// Elements of a double[] which are written as whole numbers, rather than in Double.toString form.
+		private BitSet whole;
 		private SVVal length;
 		public final boolean noUnpack;
 		
@@ -984,21 +1062,222 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 			Arrays.fill(array, NULL);
 			for (int i = 0; i < elements.length; i++)
 				array[i] = getVar(elements[i], false, ctx, this);
-			length = new SVVal(array.length, this);
+			length = Scajl.numOf(array.length);
 			this.noUnpack = noUnpack;
 		}
 		public SVArray(String input, String modless, ScajlVariable[] array, boolean noUnpack, SVMember selfCtx)
 		{
 			super(input, modless, selfCtx);
 			this.array = array;
-			length = new SVVal(array.length, this);
+			length = Scajl.numOf(array.length);
 			this.noUnpack = noUnpack;
 		}
 		public SVArray(ScajlVariable[] array, SVMember selfCtx)
 		{
 			this(null, null, array, false, selfCtx);
-			for (ScajlVariable var : array)
-				var.setSelf(this);
+			for (int i = 0; i < array.length; i++)
+				array[i] = array[i].setSelf(this);
+		}
+		public SVArray(double[] prims, SVMember selfCtx)
+		{
+			this(null, null, prims, null, false, selfCtx);
+		}
+		public SVArray(long[] prims, SVMember selfCtx)
+		{
+			this(null, null, prims, null, false, selfCtx);
+		}
+		public SVArray(boolean[] prims, SVMember selfCtx)
+		{
+			this(null, null, prims, null, false, selfCtx);
+		}
+		private SVArray(String input, String modless, Object prims, BitSet whole, boolean noUnpack, SVMember selfCtx)
+		{
+			super(input, modless, selfCtx);
+			this.prims = prims;
+			this.whole = whole;
+			length = Scajl.numOf(Array.getLength(prims));
+			this.noUnpack = noUnpack;
+		}
+		
+		// An array of the given length with every element set to the given value, held as primitives if it can be.
+		public static SVArray filled(ScajlVariable fill, int len)
+		{
+			switch (kindOf(fill))
+			{
+				case DOUBLE:
+					double[] doubles = new double[len];
+					Arrays.fill(doubles, ((SVVal) fill).num());
+					return new SVArray(doubles, null);
+				case LONG:
+					long[] longs = new long[len];
+					Arrays.fill(longs, Long.parseLong(fill.raw()));
+					return new SVArray(longs, null);
+				case BOOLEAN:
+					boolean[] bools = new boolean[len];
+					Arrays.fill(bools, fill.raw().equals("true"));
+					return new SVArray(bools, null);
+				default:
+					ScajlVariable[] arr = new ScajlVariable[len];
+					Arrays.setAll(arr, (i) -> fill);
+					return new SVArray(arr, null);
+			}
+		}
+		
+		// Which primitive kind, if any, can hold the value without changing how it's written.
+		private static int kindOf(ScajlVariable var)
+		{
+			if (var.getClass() != SVVal.class)
+				return GENERIC;
+			SVVal val = (SVVal) var;
+			if (val.plain)
+				return DOUBLE;
+			String text = val.text();
+			if (!text.equals(val.input))
+				return GENERIC;
+			if (text.equals("true") || text.equals("false"))
+				return BOOLEAN;
+			if (isWhole(text))
+				return LONG;
+			Double num = val.num();
+			return num != null && text.equals(Double.toString(num)) ? DOUBLE : GENERIC;
+		}
+		
+		// Plain integers short enough to be held exactly by a double as well as by a long.
+		private static boolean isWhole(String text)
+		{
+			int start = text.startsWith("-") ? 1 : 0, len = text.length() - start;
+			if (len < 1 || len > 15 || (len > 1 || start == 1) && text.charAt(start) == '0')
+				return false;
+			for (int i = start; i < text.length(); i++)
+				if (text.charAt(i) < '0' || text.charAt(i) > '9')
+					return false;
+			return true;
+		}
+		
+		// Whole numbers in Scajl.numOf's range share one value each here too, as they're written without the '.0'.
+		private static final AtomicReferenceArray<SVVal> WHOLES = new AtomicReferenceArray<>(Math.max(0, Scajl.INT_CACHE_HIGH - Scajl.INT_CACHE_LOW + 1));
+		
+		static SVVal wholeOf(long num)
+		{
+			if (num < Scajl.INT_CACHE_LOW || num > Scajl.INT_CACHE_HIGH)
+				return newWhole(num);
+			int at = (int) (num - Scajl.INT_CACHE_LOW);
+			SVVal got = WHOLES.get(at);
+			if (got == null)
+			{
+				got = newWhole(num).share();
+				if (!WHOLES.compareAndSet(at, null, got))
+					got = WHOLES.get(at);
+			}
+			return got;
+		}
+		
+		private static SVVal newWhole(long num)
+		{
+			String text = Long.toString(num);
+			return new SVVal(text, text, (double) num, null);
+		}
+		
+		private static Object copyOf(Object prims, int len)
+		{
+			Object copy = Array.newInstance(prims.getClass().getComponentType(), len);
+			System.arraycopy(prims, 0, copy, 0, Math.min(len, Array.getLength(prims)));
+			return copy;
+		}
+		
+		private int size()
+		{
+			return prims == null ? array.length : Array.getLength(prims);
+		}
+		
+		private ScajlVariable get(int i)
+		{
+			return prims == null ? array[i] : element(i);
+		}
+		
+		private ScajlVariable element(int i)
+		{
+			if (prims instanceof double[])
+			{
+				double num = ((double[]) prims)[i];
+				if (whole != null && whole.get(i) && num == (long) num)
+					return wholeOf((long) num);
+				return Scajl.numOf(num);
+			}
+			if (prims instanceof long[])
+				return wholeOf(((long[]) prims)[i]);
+			return Scajl.boolOf(((boolean[]) prims)[i]);
+		}
+		
+		private void set(int i, ScajlVariable var)
+		{
+			if (prims != null)
+			{
+				int kind = kindOf(var);
+				if (kind == DOUBLE && prims instanceof long[])
+					widen();
+				if (prims instanceof double[] && (kind == DOUBLE || kind == LONG))
+				{
+					if (kind == LONG)
+					{
+						((double[]) prims)[i] = Long.parseLong(var.raw());
+						if (whole == null)
+							whole = new BitSet();
+						whole.set(i);
+					}
+					else
+					{
+						((double[]) prims)[i] = ((SVVal) var).num();
+						if (whole != null)
+							whole.clear(i);
+					}
+					return;
+				}
+				if (prims instanceof long[] && kind == LONG)
+				{
+					((long[]) prims)[i] = Long.parseLong(var.raw());
+					return;
+				}
+				if (prims instanceof boolean[] && kind == BOOLEAN)
+				{
+					((boolean[]) prims)[i] = var.raw().equals("true");
+					return;
+				}
+				box();
+			}
+			array[i] = var.setSelf(this);
+		}
+		
+		// Turns long[] elements into double[] ones still written as whole numbers, or boxes them if any are too large to be held exactly.
+		private void widen()
+		{
+			long[] longs = (long[]) prims;
+			double[] doubles = new double[longs.length];
+			for (int i = 0; i < longs.length; i++)
+			{
+				if (longs[i] > EXACT_LONG || longs[i] < -EXACT_LONG)
+				{
+					box();
+					return;
+				}
+				doubles[i] = longs[i];
+			}
+			prims = doubles;
+			whole = new BitSet(longs.length);
+			whole.set(0, longs.length);
+		}
+		
+		// Replaces the primitive elements with variables, for once they can no longer all be held as one kind.
+		private void box()
+		{
+			if (prims == null)
+				return;
+			ScajlVariable[] boxed = new ScajlVariable[size()];
+			for (int i = 0; i < boxed.length; i++)
+				boxed[i] = element(i).setSelf(this);
+			array = boxed;
+			prims = null;
+			whole = null;
 		}
 		
 		@Override
@@ -1010,6 +1289,13 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		@Override
 		public String raw(HashSet<SVMember> selfReference)
 		{
+			if (prims != null)
+			{
+				StringBuilder out = new StringBuilder().append(Scajl.ARR_S);
+				for (int i = 0, len = size(); i < len; i++)
+					out.append(i == 0 ? "" : Scajl.ARR_SEP + " ").append(element(i).raw());
+				return out.append(Scajl.ARR_E).toString();
+			}
 			boolean remove = selfReference.add(this);
 			String out = "" + Scajl.ARR_S;
 			for (int i = 0; i < array.length; i++)
@@ -1045,33 +1331,58 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 				Integer ind = CmdArg.dumbParseI(accVal);
 				if (ind == null)
 					ctx.parseExcept("Invalid Array index: " + accVal, "Array indices must be numbers.", "From access: " + StringUtils.toString(memberAccess, "", "" + Scajl.ARR_ACCESS, ""));
+				int len = size();
 				if (ind < 0)
-					ind = array.length + ind;
-				if (ind >= array.length || ind < 0)
+					ind = len + ind;
+				if (ind >= len || ind < 0)
 					ctx.parseExcept("Invalid Array index: " + ind, "Index out of bounds.", "From access: " + StringUtils.toString(memberAccess, "", "" + Scajl.ARR_ACCESS, ""));
 				final int iind = ind;
 				if (off == memberAccess.length - 1)
-					return new VarCtx(() -> array[iind], (var) ->
-					{
-						array[iind] = var;
-						var.selfCtx = new WeakReference<>(this);
-					});
+					return new VarCtx(() -> get(iind), (var) -> set(iind, var));
+				if (prims != null)
+					return element(ind).clone().setSelf(this).varCtx(memberAccess, off + 1, put, ctx);
 				return array[ind].varCtx(memberAccess, off + 1, put, ctx);
 			}
 		}
 		public void resize(int len)
 		{
+			if (prims != null && len <= size())
+			{
+				prims = copyOf(prims, len);
+				if (whole != null)
+					whole.clear(len, Math.max(len, whole.length()));
+				length = Scajl.numOf(len);
+				return;
+			}
+			box();
 			int oldLen = array.length;
 			array = Arrays.copyOf(array, len);
 			if (len > oldLen)
 				Arrays.fill(array, oldLen, len, NULL);
-			length = new SVVal(len, this);
+			length = Scajl.numOf(len);
 		}
 		
 		@Override
 		public Iterator<ScajlVariable> valueIterator()
 		{
-			return MapUtils.of(array);
+			if (prims == null)
+				return MapUtils.of(array);
+			return new Iterator<ScajlVariable>()
+			{
+				private int i = 0;
+				
+				@Override
+				public boolean hasNext()
+				{
+					return i < size();
+				}
+				
+				@Override
+				public ScajlVariable next()
+				{
+					return element(i++);
+				}
+			};
 		}
 		
 		@SuppressWarnings("unchecked")
@@ -1094,10 +1405,10 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 			if (!(other instanceof SVArray))
 				return false;
 			SVArray oth = (SVArray) other;
-			if (oth.array.length < array.length)
+			if (oth.size() < size())
 				return false;
-			for (int i = 0; i < array.length; i++)
-				if (oth.array[i] == null || !array[i].test(oth.array[i], ctx))
+			for (int i = 0; i < size(); i++)
+				if (oth.get(i) == null || !get(i).test(oth.get(i), ctx))
 					return false;
 			return true;
 		}
@@ -1108,11 +1419,12 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 			if (!(other instanceof SVArray))
 				return clone();
 			SVArray oth = (SVArray) other;
-			if (oth.array.length < array.length)
-				oth.resize(array.length);
-			for (int i = 0; i < array.length; i++)
-				if (oth.array[i] == null || !array[i].test(other, ctx))
-					oth.array[i] = array[i].enforce(oth.array[i], ctx).setSelf(oth);
+			oth.box();
+			if (oth.array.length < size())
+				oth.resize(size());
+			for (int i = 0; i < size(); i++)
+				if (oth.array[i] == null || !get(i).test(other, ctx))
+					oth.array[i] = get(i).enforce(oth.array[i], ctx).setSelf(oth);
 			return oth;
 		}
 		
@@ -1125,6 +1437,12 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		@Override
 		public SVArray clone(int noUnpack, HashMap<SVMember, SVMember> selfReference)
 		{
+			if (prims != null)
+			{
+				SVArray clone = new SVArray(input, modless, copyOf(prims, size()), whole == null ? null : (BitSet) whole.clone(), ScajlVariable.val(noUnpack), selfCtx.get());
+				selfReference.put(this, clone);
+				return clone;
+			}
 			ScajlVariable[] deepCopy = Arrays.copyOf(array, array.length);
 			SVArray clone = new SVArray(input, modless, deepCopy, val(noUnpack), selfCtx.get());
 			selfReference.put(this, clone);
@@ -1151,17 +1469,38 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 			if (!(other instanceof SVArray))
 				return false;
 			SVArray oth = (SVArray) other;
-			if (oth.array.length != array.length || oth.noUnpack != noUnpack)
+			if (oth.size() != size() || oth.noUnpack != noUnpack)
 				return false;
-			for (int i = 0; i < array.length; i++)
-				if (!array[i].equals(oth.array[i]))
+			for (int i = 0; i < size(); i++)
+				if (!get(i).equals(oth.get(i)))
 					return false;
 			return true;
 		}
 		
+		// Primitive elements are boxed into a new array on each call, which doesn't write back to this one.
 		public ScajlVariable[] getArray()
 		{
-			return array;
+			if (prims == null)
+				return array;
+			ScajlVariable[] boxed = new ScajlVariable[size()];
+			for (int i = 0; i < boxed.length; i++)
+				boxed[i] = element(i);
+			return boxed;
+		}
+		
+		// The double[], long[] or boolean[] holding the elements, or null if they're held as variables. Writes to it are seen by this array.
+		public Object primitives()
+		{
+			return prims;
+		}
+		
+		// The elements as a double[] this array keeps using, so writes to it are seen by the array, or null if they can't all be held
+		// by one. Whole number elements stay written as whole numbers.
+		public double[] doubles()
+		{
+			if (prims instanceof long[])
+				widen();
+			return prims instanceof double[] ? (double[]) prims : null;
 		}
 		
 		//////////////////////////////////// Interface
@@ -1210,6 +1549,376 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		}*/
 	}
 	
+	public static class SVBuffer extends SVMember
+	{
+		// A single ByteBuffer can't hold more than 2GB, so larger Buffers are split across several.
+		private static final int CHUNK_BITS = 30;
+		private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+		private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+		private static final int PRINT_LIMIT = 100;
+		
+		public static enum Kind
+		{
+			DOUBLE(double.class, 3), LONG(long.class, 3), INT(int.class, 2), BYTE(byte.class, 0);
+			
+			public final Class<?> prim;
+			private final int shift;
+			
+			private Kind(Class<?> prim, int shift)
+			{
+				this.prim = prim;
+				this.shift = shift;
+			}
+			
+			public static Kind of(String name)
+			{
+				for (Kind kind : values())
+					if (kind.prim.getName().equals(name))
+						return kind;
+				return null;
+			}
+			
+			@Override
+			public String toString()
+			{
+				return prim.getName();
+			}
+		}
+		
+		private final ByteBuffer[] chunks;
+		public final Kind kind;
+		private final long offset, count;
+		private final SVVal length;
+		
+		public SVBuffer(Kind kind, long count)
+		{
+			this(null, null, null, allocate(kind, count), kind, 0, count);
+		}
+		private SVBuffer(String input, String modless, SVMember selfCtx, ByteBuffer[] chunks, Kind kind, long offset, long count)
+		{
+			super(input, modless, selfCtx);
+			this.chunks = chunks;
+			this.kind = kind;
+			this.offset = offset;
+			this.count = count;
+			length = Scajl.numOf(count);
+		}
+		
+		// Maps the file as the Buffer's elements, extending it to hold the given count of them, or taking its whole length if the count is negative.
+		public static SVBuffer map(File file, Kind kind, long count) throws IOException
+		{
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE))
+			{
+				if (count < 0)
+					count = channel.size() >> kind.shift;
+				long bytes = count << kind.shift;
+				ByteBuffer[] chunks = new ByteBuffer[chunksFor(bytes)];
+				for (int i = 0; i < chunks.length; i++)
+					chunks[i] = channel.map(MapMode.READ_WRITE, (long) i << CHUNK_BITS, chunkSize(bytes, i)).order(ORDER);
+				return new SVBuffer(null, null, null, chunks, kind, 0, count);
+			}
+		}
+		
+		private static ByteBuffer[] allocate(Kind kind, long count)
+		{
+			long bytes = count << kind.shift;
+			ByteBuffer[] chunks = new ByteBuffer[chunksFor(bytes)];
+			for (int i = 0; i < chunks.length; i++)
+				chunks[i] = ByteBuffer.allocateDirect(chunkSize(bytes, i)).order(ORDER);
+			return chunks;
+		}
+		
+		private static int chunksFor(long bytes)
+		{
+			return (int) ((bytes + CHUNK_MASK) >>> CHUNK_BITS);
+		}
+		
+		private static int chunkSize(long bytes, int chunk)
+		{
+			return (int) Math.min(1L << CHUNK_BITS, bytes - ((long) chunk << CHUNK_BITS));
+		}
+		
+		public long length()
+		{
+			return count;
+		}
+		
+		// A Buffer over the elements from 'from' up to 'to', sharing them with this one.
+		public SVBuffer slice(long from, long to)
+		{
+			return new SVBuffer(null, null, null, chunks, kind, offset + from, to - from);
+		}
+		
+		public double getDouble(long i)
+		{
+			long at = (offset + i) << kind.shift;
+			if (kind == Kind.DOUBLE)
+				return chunks[(int) (at >>> CHUNK_BITS)].getDouble((int) (at & CHUNK_MASK));
+			return getLong(i);
+		}
+		
+		public long getLong(long i)
+		{
+			long at = (offset + i) << kind.shift;
+			ByteBuffer chunk = chunks[(int) (at >>> CHUNK_BITS)];
+			int pos = (int) (at & CHUNK_MASK);
+			switch (kind)
+			{
+				case DOUBLE:
+					return (long) chunk.getDouble(pos);
+				case LONG:
+					return chunk.getLong(pos);
+				case INT:
+					return chunk.getInt(pos);
+				default:
+					return chunk.get(pos);
+			}
+		}
+		
+		// Whole number Buffers are written like the LONG, INT and BYTE arguments would convert the number.
+		public void put(long i, double val)
+		{
+			long at = (offset + i) << kind.shift;
+			ByteBuffer chunk = chunks[(int) (at >>> CHUNK_BITS)];
+			int pos = (int) (at & CHUNK_MASK);
+			switch (kind)
+			{
+				case DOUBLE:
+					chunk.putDouble(pos, val);
+					break;
+				case LONG:
+					chunk.putLong(pos, (long) val);
+					break;
+				case INT:
+					chunk.putInt(pos, (int) val);
+					break;
+				default:
+					chunk.put(pos, (byte) val);
+			}
+		}
+		
+		public void put(long i, long val)
+		{
+			if (kind == Kind.DOUBLE)
+			{
+				put(i, (double) val);
+				return;
+			}
+			long at = (offset + i) << kind.shift;
+			ByteBuffer chunk = chunks[(int) (at >>> CHUNK_BITS)];
+			int pos = (int) (at & CHUNK_MASK);
+			switch (kind)
+			{
+				case LONG:
+					chunk.putLong(pos, val);
+					break;
+				case INT:
+					chunk.putInt(pos, (int) val);
+					break;
+				default:
+					chunk.put(pos, (byte) val);
+			}
+		}
+		
+		private ScajlVariable element(long i)
+		{
+			if (kind == Kind.DOUBLE)
+				return Scajl.numOf(getDouble(i));
+			return SVArray.wholeOf(getLong(i));
+		}
+		
+		// A new primitive array of the elements, or null if they can't all be held by that type or array.
+		public Object toArray(Class<?> prim)
+		{
+			if (count > Integer.MAX_VALUE - 8)
+				return null;
+			int len = (int) count;
+			if (prim == kind.prim)
+			{
+				Object out = Array.newInstance(prim, len);
+				copyTo(out);
+				return out;
+			}
+			if (prim == double.class)
+			{
+				double[] out = new double[len];
+				for (int i = 0; i < len; i++)
+					out[i] = getLong(i);
+				return out;
+			}
+			if (prim == long.class && kind != Kind.DOUBLE)
+			{
+				long[] out = new long[len];
+				for (int i = 0; i < len; i++)
+					out[i] = getLong(i);
+				return out;
+			}
+			if (prim == int.class && kind == Kind.BYTE)
+			{
+				int[] out = new int[len];
+				for (int i = 0; i < len; i++)
+					out[i] = (int) getLong(i);
+				return out;
+			}
+			return null;
+		}
+		
+		// Copies the elements into an array of their own type in bulk, a chunk at a time.
+		private void copyTo(Object out)
+		{
+			int done = 0;
+			while (done < count)
+			{
+				long at = (offset + done) << kind.shift;
+				ByteBuffer chunk = chunks[(int) (at >>> CHUNK_BITS)];
+				int pos = (int) (at & CHUNK_MASK);
+				int n = (int) Math.min(count - done, (chunk.capacity() - pos) >> kind.shift);
+				ByteBuffer from = chunk.slice(pos, n << kind.shift).order(ORDER);
+				switch (kind)
+				{
+					case DOUBLE:
+						from.asDoubleBuffer().get((double[]) out, done, n);
+						break;
+					case LONG:
+						from.asLongBuffer().get((long[]) out, done, n);
+						break;
+					case INT:
+						from.asIntBuffer().get((int[]) out, done, n);
+						break;
+					default:
+						from.get((byte[]) out, done, n);
+				}
+				done += n;
+			}
+		}
+		
+		@Override
+		public String type()
+		{
+			return Scajl.BUFFER;
+		}
+		
+		// Only the first elements are written out, as a Buffer may hold far more than could be printed.
+		@Override
+		public String raw(HashSet<SVMember> selfReference)
+		{
+			StringBuilder out = new StringBuilder().append(Scajl.ARR_S);
+			long shown = Math.min(count, PRINT_LIMIT);
+			for (long i = 0; i < shown; i++)
+				out.append(i == 0 ? "" : Scajl.ARR_SEP + " ").append(element(i).raw());
+			if (count > shown)
+				out.append(Scajl.ARR_SEP + " ...");
+			return out.append(Scajl.ARR_E).toString();
+		}
+		
+		@Override
+		protected boolean hasAcc(String acc)
+		{
+			return acc.equals(Scajl.ARR_LEN);
+		}
+		
+		@Override
+		public VarCtx memCtx(String[] memberAccess, int off, String accVal, boolean put, Scajl ctx)
+		{
+			if (accVal.equals(Scajl.ARR_LEN) && off == memberAccess.length - 1)
+			{
+				if (put)
+					ctx.parseExcept("Invalid member access", "Cannot set the '%s' value of a Buffer directly".formatted(Scajl.ARR_LEN));
+				return new VarCtx(() -> length);
+			}
+			Double d = CmdArg.dumbParse(accVal);
+			if (d == null)
+				ctx.parseExcept("Invalid Buffer index: " + accVal, "Buffer indices must be numbers.", "From access: " + StringUtils.toString(memberAccess, "", "" + Scajl.ARR_ACCESS, ""));
+			long ind = Math.round(d);
+			if (ind < 0)
+				ind = count + ind;
+			if (ind >= count || ind < 0)
+				ctx.parseExcept("Invalid Buffer index: " + ind, "Index out of bounds.", "From access: " + StringUtils.toString(memberAccess, "", "" + Scajl.ARR_ACCESS, ""));
+			final long iind = ind;
+			if (off == memberAccess.length - 1)
+				return new VarCtx(() -> element(iind), (var) ->
+				{
+					// Whole numbers are read as longs, as doubles can't hold the larger ones exactly.
+					Number val;
+					if (kind == Kind.DOUBLE)
+						val = CmdArg.DOUBLE.parse(var, ctx);
+					else
+						val = CmdArg.LONG.parse(var, ctx);
+					if (val == null)
+						ctx.parseExcept("Invalid token resolution for Buffer element", "Buffer elements must be specified as numbers.", "From input: " + var.raw());
+					if (kind == Kind.DOUBLE)
+						put(iind, val.doubleValue());
+					else
+						put(iind, val.longValue());
+				});
+			return element(ind).varCtx(memberAccess, off + 1, put, ctx);
+		}
+		
+		@Override
+		public Iterator<ScajlVariable> valueIterator()
+		{
+			return new Iterator<ScajlVariable>()
+			{
+				private long i = 0;
+				
+				@Override
+				public boolean hasNext()
+				{
+					return i < count;
+				}
+				
+				@Override
+				public ScajlVariable next()
+				{
+					return element(i++);
+				}
+			};
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public SVBuffer packTo(int dimensions)
+		{
+			return null;
+		}
+		
+		@Override
+		public boolean test(ScajlVariable other, Scajl ctx)
+		{
+			return other instanceof SVBuffer && ((SVBuffer) other).kind == kind;
+		}
+		
+		@Override
+		public ScajlVariable enforce(ScajlVariable other, Scajl ctx)
+		{
+			return test(other, ctx) ? other : clone();
+		}
+		
+		// Clones share their elements, as Java Objects do, rather than copying what may be more than the heap can hold.
+		@Override
+		public SVBuffer clone(int noUnpack, HashMap<SVMember, SVMember> selfReference)
+		{
+			SVBuffer clone = new SVBuffer(input, modless, selfCtx.get(), chunks, kind, offset, count);
+			selfReference.put(this, clone);
+			return clone;
+		}
+		
+		@Override
+		public boolean equals(Object other)
+		{
+			if (!(other instanceof SVBuffer))
+				return false;
+			SVBuffer oth = (SVBuffer) other;
+			return oth.chunks == chunks && oth.kind == kind && oth.offset == offset && oth.count == count;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(System.identityHashCode(chunks), kind, offset, count);
+		}
+	}
+	
 /*	public static class SVUnresolved extends ScajlVariable
 	{
 		private final ScajlVariable target;
@@ -1382,6 +2091,11 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 	}
 	public static void putVar(String name, ScajlVariable var, Scajl ctx, SVMember selfCtx)
 	{
+		if (ctx.isPlainName(name))
+		{
+			ctx.scope.put(name, var);
+			return;
+		}
 		String[] arrAcc = Scajl.syntaxedSplit(name, "" + Scajl.ARR_ACCESS);
 		ScajlVariable toVar = getVar(arrAcc[0], arrAcc.length == 1, ctx);
 		if (arrAcc.length > 1)
@@ -1403,16 +2117,11 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		}
 		else
 		{
-			name = toVar.input;
+			name = toVar.input();
 			if (Scajl.ILLEGAL_VAR_MATCHER.matcher(name).matches())
 				ctx.parseExcept("Illegal characters in variable name", name);
-			try
-			{
-				Double.parseDouble(name);
+			if (CmdArg.isNumber(name))
 				ctx.parseExcept("Numerical variable name", name);
-			}
-			catch (NumberFormatException e)
-			{}
 			ctx.scope.put(name, var);
 		}
 	}
@@ -1475,8 +2184,7 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		if (input.equals(Scajl.NULL))
 			return NULL;
 		
-		boolean isNumber = CmdArg.dumbParse(input) != null;
-		if (isNumber)
+		if (CmdArg.isNumber(input))
 			return new SVVal(input, selfCtx);
 		MixedPair<boolean[], String> modPair = Scajl.prefixModsFrom(input, Scajl.VALID_VAR_MODS);
 		String modless = modPair.b();
@@ -1512,7 +2220,7 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 		if (isString && !modless.endsWith("" + Scajl.STRING_CHAR))
 			ctx.parseExcept("Malformed String", "A quoted String must start and end with the '\"' character.", "From input: " + input);
 		boolean isContainer = containerCheck(modless, input, ctx);
-		boolean hasEq = isContainer && Scajl.syntaxedContains(modless.substring(1), Pattern.quote("" + Scajl.MAP_KEY_EQ), 1);
+		boolean hasEq = isContainer && Scajl.syntaxedContains(modless.substring(1), Scajl.MAP_KEY_EQ);
 		boolean isArray = isContainer && !hasEq;
 		if (noUnpack && !(isArray || isRawCont))
 			ctx.parseExcept("Illegal reference modifier", "The \"don't unpack\" modifier is only allowed on Array declarations and clonings.", "From input: " + input);
@@ -1564,21 +2272,16 @@ public abstract class ScajlVariable implements ScajlClone<ScajlVariable>
 	
 	private static boolean containerCheck(String modless, String input, Scajl ctx)
 	{
-		BoxTracker ARRTRACK = Scajl.ARRTRACK;
-		DelimTracker QTRACK = Scajl.QTRACK;
 		boolean isContainer = modless.startsWith("" + Scajl.ARR_S);
 		if (!isContainer)
 			return false;
 		if (!modless.endsWith("" + Scajl.ARR_E))
 			ctx.parseExcept("Malformed Container", "An Array or Map must start and end with the '" + Scajl.ARR_S + "' and '" + Scajl.ARR_E + "' characters, respectively", "From input: " + input);
-		ARRTRACK.reset();
-		QTRACK.reset();
-		for (int i = 0; i < modless.length() - 1; i++)
-		{
-			char parse = input.charAt(i);
-			QTRACK.track(parse);
-			ARRTRACK.track(parse, QTRACK.inside());
-			if (!ARRTRACK.inside())
+		Lexer lex = new Lexer(input.toCharArray(), 0, modless.length() - 1);
+		while (lex.hasNext())
+		{
+			lex.next();
+			if (!lex.inBox())
 				ctx.parseExcept("Malformed Container", "Invalid syntax in container element", "From input: " + input);
 		}
 		return true;
@@ -154,30 +154,24 @@ public class Scope
 		protected void put(String name, ScajlVariable val)
 		{
 			SNode sn = this, old = this;
-			boolean contains = false, couldAccessOld = true;
-			while (!contains && sn != null)
+			boolean couldAccessOld = true;
+			while (sn != null)
 			{
-				contains = (sn == this || sn.label.root.isAccessible || (couldAccessOld && old.label.root.getsAccess)) && sn.vars.containsKey(name);
-				if (!contains)
-				{
-					old = sn;
-					couldAccessOld = couldAccessOld || old.label.root.isAccessible;
-					sn = sn.parent;
-				}
-				else
-				{
-					sn.vars.put(name, val);
+				// replace() both checks for and overwrites the variable, so each frame is only hashed into once.
+				if ((sn == this || sn.label.root.isAccessible || (couldAccessOld && old.label.root.getsAccess)) && (sn.vars.replace(name, val) != null || sn.vars.containsKey(name)))
 					return;
-				}
+				old = sn;
+				couldAccessOld = couldAccessOld || old.label.root.isAccessible;
+				sn = sn.parent;
 			}
 			vars.put(name, val);
 		}
 		
 		protected ScajlVariable get(String name)
 		{
-			ScajlVariable out = vars.get(name);
-			if (out == null && parent != null)
-				return parent.get(name);
+			ScajlVariable out = null;
+			for (SNode sn = this; out == null && sn != null; sn = sn.parent)
+				out = sn.vars.get(name);
 			return out;
 		}
 		
@@ -56,6 +56,7 @@ public class Script
 			scj = null;
 		}
 		scajl = scj;
+		ScriptWatcher.register(this);
 	}
 	
 	public Script(Scajl ctx, Scajl scajlIn)
@@ -71,6 +72,7 @@ public class Script
 	
 	public Script imprt(VarSet... sets)
 	{
+		scajl.safePoint();
 		LabelTree onImp = scajl.labelTree.getFor(Scajl.IMPORT_LABEL);
 		if (onImp != null)
 			scajl.runFrom(onImp.root, sets);
@@ -89,6 +91,7 @@ public class Script
 	@Desc("Run this Script from the given label, using the given variables, and return the result.")
 	public ScajlVariable call(String label, VarSet... sets)
 	{
+		scajl.safePoint();
 		Label lab = scajl.getLabel(label);
 		if (lab != null)
 			scajl.runFrom(lab, sets);
@@ -108,6 +111,7 @@ public class Script
 	@Desc("Evaluates the given input in this imported Script.")
 	public ScajlVariable in(String input)
 	{
+		scajl.safePoint();
 		return scajl.getVar(input, false, null);
 	}
 	
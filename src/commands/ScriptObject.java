@@ -49,21 +49,35 @@ public class ScriptObject<T>
 		this.description = description;
 		inlineConst = (CmdArg<T>[]) Array.newInstance(CmdArg.class, 0);
 		
-		cmdArg = new CmdArg<T>(typeName, cl)
+		cmdArg = new ObjectArg<T>(typeName, cl).reg();
+	}
+	
+	// Picks the first Object of the exposed type out of an Object variable.
+	static class ObjectArg<T> extends CmdArg<T>
+	{
+		private ObjectArg(String typeName, Class<T> cl)
 		{
-			@Override
-			public T parse(ScajlVariable[] vars, int off, Scajl ctx)
-			{
-				if (!(vars[off] instanceof SVJavObj))
-					return null;
-				SVJavObj jObj = (SVJavObj) vars[off];
-				Object[] types = jObj.value;
-				for (Object obj : types)
-					if (cl.isAssignableFrom(obj.getClass()))
-						return (T) obj;
+			super(typeName, cl);
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public T parse(ScajlVariable[] vars, int off, Scajl ctx)
+		{
+			if (!(vars[off] instanceof SVJavObj))
 				return null;
-			}
-		}.reg();
+			Object[] types = ((SVJavObj) vars[off]).value;
+			int at = indexIn(types);
+			return at == -1 ? null : (T) types[at];
+		}
+		
+		int indexIn(Object[] types)
+		{
+			for (int i = 0; i < types.length; i++)
+				if (cls.isAssignableFrom(types[i].getClass()))
+					return i;
+			return -1;
+		}
 	}
 	
 	public String newObjKey()
@@ -93,6 +107,7 @@ public class ScriptObject<T>
 		ScriptObject<SO> sup = new ScriptObject<SO>(type, description, cl);
 		for (ScriptObject<? extends SO> ext : subs)
 			sup.subs.add(ext);
+		RegistryVersion.changed();
 		return sup;
 	}
 	
@@ -100,12 +115,14 @@ public class ScriptObject<T>
 	{
 		ScriptObject<SUB> sub = new ScriptObject<SUB>(type, description, cl);
 		sup.subs.add(sub);
+		RegistryVersion.changed();
 		return sub;
 	}
 	
 	public static <SUP, SUB extends SUP> ScriptObject<SUB> makeSub(ScriptObject<SUB> sub, ScriptObject<SUP> sup)
 	{
 		sup.subs.add(sub);
+		RegistryVersion.changed();
 		return sub;
 	}
 	
@@ -113,6 +130,7 @@ public class ScriptObject<T>
 	{
 		for (ScriptObject<? extends SUP> ext : subs)
 			sup.subs.add(ext);
+		RegistryVersion.changed();
 		return sup;
 	}
 	
@@ -129,6 +147,7 @@ public class ScriptObject<T>
 		Command cmd = new Command(name, ret, desc, args);
 		if (memberCmds.put(name, cmd) != null)
 			throw new IllegalArgumentException("Cannot register two commands to the same name in the same type: " + typeName + Scajl.MEMBER_ACCESS + name);
+		RegistryVersion.changed();
 		return cmd;
 	}
 	
@@ -0,0 +1,148 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+package commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+// Reloads imported Scripts when their source files change. Each changed script is recompiled on the watcher's
+// thread, and the live handle picks up the new body the next time it is called from outside.
+public class ScriptWatcher
+{
+	private static final long SETTLE_MILLIS = 100;
+	private static ScriptWatcher active = null;
+	
+	private final WatchService watcher;
+	private final Path dir;
+	private final ArrayList<WeakReference<Script>> scripts = new ArrayList<>();
+	private final Thread thread;
+	
+	private ScriptWatcher(File dir) throws IOException
+	{
+		this.dir = dir.getAbsoluteFile().toPath();
+		watcher = FileSystems.getDefault().newWatchService();
+		this.dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		thread = new Thread(this::watch, "Scajl Script Watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	// Starts watching the script directory, if it isn't already. Scripts imported from then on are reloaded when changed.
+	public static synchronized ScriptWatcher start() throws IOException
+	{
+		if (active == null)
+			active = new ScriptWatcher(Scajl.scriptDir());
+		return active;
+	}
+	
+	public static synchronized void stop()
+	{
+		if (active == null)
+			return;
+		try
+		{
+			active.watcher.close();
+		}
+		catch (IOException e)
+		{}
+		active = null;
+	}
+	
+	static synchronized void register(Script script)
+	{
+		if (active != null && script.scajl != null && script.scajl.path != null)
+			active.add(script);
+	}
+	
+	public synchronized void add(Script script)
+	{
+		scripts.add(new WeakReference<>(script));
+	}
+	
+	private synchronized ArrayList<Script> scriptsFor(File source)
+	{
+		File compiled = CompiledScript.compiledFor(source);
+		ArrayList<Script> out = new ArrayList<>();
+		scripts.removeIf((ref) -> ref.get() == null);
+		for (WeakReference<Script> ref : scripts)
+		{
+			Script scr = ref.get();
+			if (scr != null && (scr.scajl.path.equals(source.getPath()) || scr.scajl.path.equals(compiled.getPath())))
+				out.add(scr);
+		}
+		return out;
+	}
+	
+	private void watch()
+	{
+		try
+		{
+			while (true)
+			{
+				// Saving a file often takes several writes, so changes are gathered until they settle.
+				LinkedHashSet<File> changed = new LinkedHashSet<>();
+				WatchKey key = watcher.take();
+				do
+				{
+					for (WatchEvent<?> event : key.pollEvents())
+					{
+						if (!(event.context() instanceof Path))
+							continue;
+						File file = dir.resolve((Path) event.context()).toFile();
+						if (file.getName().endsWith(Scajl.SCRIPT_EXT))
+							changed.add(file);
+					}
+					key.reset();
+					Thread.sleep(SETTLE_MILLIS);
+				}
+				while ((key = watcher.poll()) != null);
+				for (File file : changed)
+					reload(file);
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e)
+		{}
+	}
+	
+	private void reload(File source)
+	{
+		for (Script scr : scriptsFor(source))
+		{
+			File from = Scajl.getScriptFile(source);
+			if (from == null)
+				continue;
+			try
+			{
+				scr.scajl.stageReload(new Scajl(from));
+			}
+			catch (Exception e)
+			{
+				// A half-written or broken file leaves the Script running its last good version.
+				scr.scajl.error("Unable to reload Script " + source.getName() + ": " + e.getMessage());
+			}
+		}
+	}
+}
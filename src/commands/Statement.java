@@ -0,0 +1,207 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package commands;
+
+import utilities.StringUtils;
+
+public class Statement
+{
+	public static final int EMPTY = 0, LABEL = 1, HELP = 2, SCOPE_OPEN = 3, SCOPE_CLOSE = 4, EXECUTABLE = 5, NO_OP = 6;
+	
+	public final String source, line;
+	public final int kind;
+	public final boolean endsLabel, varArgArray;
+	public final CmdHead head;
+	public final String[] args, tokenStrs;
+	public final String[][] tokens;
+	public final boolean[] unpacks;
+	private final RuntimeException failure;
+	private volatile Binding binding = null;
+	
+	private Statement(String source, int kind)
+	{
+		this(source, kind, kind != LABEL && Scajl.endsLabel(source));
+	}
+	
+	Statement(String source, int kind, boolean endsLabel)
+	{
+		this.source = source;
+		this.line = source;
+		this.kind = kind;
+		this.endsLabel = endsLabel;
+		varArgArray = false;
+		head = null;
+		args = tokenStrs = null;
+		tokens = null;
+		unpacks = null;
+		failure = null;
+	}
+	
+	private Statement(String source, String line, boolean endsLabel)
+	{
+		this.source = source;
+		this.line = line;
+		this.kind = EXECUTABLE;
+		this.endsLabel = endsLabel;
+		CmdHead head = null;
+		String[] args = null, tokenStrs = null;
+		String[][] tokens = null;
+		boolean[] unpacks = null;
+		boolean varArgArray = false;
+		RuntimeException failure = null;
+		try
+		{
+			head = new CmdHead(Scajl.firstToken(line));
+			args = Scajl.argsOf(line);
+			varArgArray = args.length > 0 && args[args.length - 1].startsWith(Scajl.VAR_ARG_STR);
+			if (varArgArray)
+				args[args.length - 1] = args[args.length - 1].substring(1);
+			tokens = new String[args.length][];
+			tokenStrs = new String[args.length];
+			unpacks = new boolean[args.length];
+			for (int i = 0; i < args.length; i++)
+			{
+				tokens[i] = Scajl.tokensOf(args[i]);
+				tokenStrs[i] = StringUtils.toString(tokens[i], "", " ", "");
+				for (String tok : tokens[i])
+					unpacks[i] |= tok.charAt(0) == Scajl.UNPACK;
+			}
+		}
+		catch (RuntimeException e)
+		{
+			failure = e;
+		}
+		this.head = head;
+		this.args = args;
+		this.tokenStrs = tokenStrs;
+		this.tokens = tokens;
+		this.unpacks = unpacks;
+		this.varArgArray = varArgArray;
+		this.failure = failure;
+	}
+	
+	Statement(String source, String line, boolean endsLabel, boolean varArgArray, String head, String[] args, String[][] tokens)
+	{
+		this.source = source;
+		this.line = line;
+		this.kind = EXECUTABLE;
+		this.endsLabel = endsLabel;
+		this.varArgArray = varArgArray;
+		this.head = new CmdHead(head);
+		this.args = args;
+		this.tokens = tokens;
+		tokenStrs = new String[args.length];
+		unpacks = new boolean[args.length];
+		for (int i = 0; i < args.length; i++)
+		{
+			tokenStrs[i] = StringUtils.toString(tokens[i], "", " ", "");
+			for (String tok : tokens[i])
+				unpacks[i] |= tok.charAt(0) == Scajl.UNPACK;
+		}
+		failure = null;
+	}
+	
+	public static Statement ofLine(String line)
+	{
+		if (line.isEmpty())
+			return new Statement(line, EMPTY);
+		if (line.startsWith(Scajl.LABEL) || line.startsWith(Scajl.SCOPED_LABEL))
+			return new Statement(line, LABEL);
+		if (line.equals(Scajl.HELP_CHAR_STR))
+			return new Statement(line, HELP);
+		if (Scajl.startsWith(line, Scajl.SCOPE_S) && Scajl.LEGAL_ANON_SCOPE_MATCHER.matcher(line).matches())
+			return new Statement(line, SCOPE_OPEN);
+		if (Scajl.endsWith(line, Scajl.SCOPE_E) && Scajl.LEGAL_ANON_SCOPE_MATCHER.matcher(line).matches())
+			return new Statement(line, SCOPE_CLOSE);
+		return ofExecutable(line, Scajl.endsLabel(line));
+	}
+	
+	public static Statement ofExecutable(String executable)
+	{
+		return ofExecutable(executable, false);
+	}
+	
+	private static Statement ofExecutable(String executable, boolean endsLabel)
+	{
+		String line = Scajl.executableTrim(executable);
+		if (line.isEmpty() || line.startsWith(Scajl.LABEL) || line.startsWith(Scajl.SCOPED_LABEL))
+			return new Statement(executable, NO_OP);
+		return new Statement(executable, line, endsLabel);
+	}
+	
+	public Object[] preParse(int arg, Scajl ctx)
+	{
+		return unpacks[arg] ? ScajlVariable.preParse(tokens[arg], ctx) : tokens[arg];
+	}
+	
+	public Command command(Scajl ctx)
+	{
+		return bind(ctx).cmd;
+	}
+	
+	public Node.Exec node(Scajl ctx)
+	{
+		return bind(ctx).node;
+	}
+	
+	// The node this line was last bound to, without binding it if it has not run yet.
+	public Node.Exec bound()
+	{
+		Binding bound = binding;
+		return bound == null ? null : bound.node;
+	}
+	
+	private Binding bind(Scajl ctx)
+	{
+		int version = RegistryVersion.get();
+		Binding bound = binding;
+		if (bound == null || bound.version != version)
+			binding = bound = new Binding(this, ctx.getCommand(head), version);
+		return bound;
+	}
+	
+	public boolean compiles()
+	{
+		return failure == null;
+	}
+	
+	public void check()
+	{
+		if (failure != null)
+			throw failure;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return source;
+	}
+	
+	private static class Binding
+	{
+		private final Command cmd;
+		private final Node.Exec node;
+		private final int version;
+		
+		private Binding(Statement st, Command cmd, int version)
+		{
+			this.cmd = cmd;
+			this.node = new Node.Exec(st, cmd);
+			this.version = version;
+		}
+	}
+}
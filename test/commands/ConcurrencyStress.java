@@ -0,0 +1,169 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Loads and runs the example scripts of the Scripting guide, along with scripts that import Libraries and Scripts and
+// share cached values, on several threads at once, and checks that each gives the same output as it does when run alone.
+// The threads go first, so that Libraries are loaded while other scripts are running.
+// Usage: ConcurrencyStress [guide path] [threads] [runs per thread]
+public class ConcurrencyStress
+{
+	private static final Pattern BLOCK = Pattern.compile("```\\n(.*?)```", Pattern.DOTALL);
+	// Examples which wait for input, move the mouse or write files aren't run.
+	private static final String[] SKIP = { "key_in", "mouse_", "sleep", "buffer_file", "run_script", "exit" };
+	
+	// Scripts put in the script directory, for the cases below to import and run.
+	private static final String[][] LIBRARY_SCRIPTS =
+	{
+		{ "stress_lib", String.join("\n",
+				"--IMPORT",
+				"var base 1000",
+				"return",
+				"--twice",
+				"var out {add base, {mult x, 2}}",
+				"return") },
+		{ "stress_sub", String.join("\n",
+				"var n 0",
+				"40:var n {add n, INDEX}",
+				"print \"sub \", n") },
+	};
+	private static final String[] CASES =
+	{
+		// Built-in Libraries, which the first script to import them loads while others may be binding commands.
+		String.join("\n",
+				"import Math, Numbers, String, Array",
+				"print {Math.sqrt 16}, \" \", {Math.max 3, 7}",
+				"print {Math.abs -12}"),
+		// A library Script, loaded and imported on every run.
+		String.join("\n",
+				"var lib {impscr \"stress_lib\"}",
+				"var sum 0",
+				"20:var sum {add sum, {Script.call lib, \"twice\", x INDEX}}",
+				"print sum"),
+		String.join("\n",
+				"runscr \"stress_sub\"",
+				"runscr \"stress_sub\""),
+		// Whole numbers from the shared cache, printed and stored back into variables and Arrays.
+		String.join("\n",
+				"var s 0",
+				"1000:var s {add s, INDEX}",
+				"print s",
+				"var arr []",
+				"20:var arr.INDEX {mult INDEX, 3}",
+				"print arr",
+				"var_array w 50 0",
+				"50:var w.INDEX {add INDEX, -25}",
+				"print w",
+				"print {concat \"n\", 7, \" \", 1024, \" \", -128}",
+				"print {calc 2 * 3 + 4}"),
+	};
+	
+	public static void main(String[] args) throws Exception
+	{
+		String guide = args.length > 0 ? args[0] : "docs/Scripting.md";
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+		
+		Path dir = Files.createTempDirectory("scajl-stress");
+		for (String[] lib : LIBRARY_SCRIPTS)
+			Files.write(dir.resolve(lib[0] + Scajl.SCRIPT_EXT), lib[1].getBytes());
+		Scajl.setScriptPath(dir.toString());
+		
+		List<String> scripts = examplesOf(guide);
+		int examples = scripts.size();
+		scripts.addAll(Arrays.asList(CASES));
+		
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<List<String>>> results = new ArrayList<>();
+		for (int t = 0; t < threads; t++)
+		{
+			final int start = t;
+			results.add(pool.submit(() ->
+			{
+				List<String> outs = new ArrayList<>();
+				for (int i = 0; i < runs; i++)
+					outs.add(run(scripts.get((start + i) % scripts.size())));
+				return outs;
+			}));
+		}
+		List<List<String>> outs = new ArrayList<>();
+		for (Future<List<String>> result : results)
+			outs.add(result.get());
+		pool.shutdown();
+		
+		List<String> expected = new ArrayList<>();
+		for (String script : scripts)
+			expected.add(run(script));
+		int mismatched = 0;
+		for (int t = 0; t < threads; t++)
+		{
+			for (int i = 0; i < runs; i++)
+			{
+				int s = (t + i) % scripts.size();
+				if (!outs.get(t).get(i).equals(expected.get(s)))
+				{
+					mismatched++;
+					System.out.println("Mismatch in script " + s + ":\n" + outs.get(t).get(i) + "\nExpected:\n" + expected.get(s));
+				}
+			}
+		}
+		
+		System.out.println(examples + " examples and " + CASES.length + " shared cases, " + threads * runs + " runs on " + threads + " threads, " + mismatched + " mismatched.");
+		if (mismatched > 0)
+			System.exit(1);
+	}
+	
+	private static List<String> examplesOf(String guide) throws IOException
+	{
+		List<String> scripts = new ArrayList<>();
+		Matcher match = BLOCK.matcher(new String(Files.readAllBytes(Paths.get(guide))));
+		examples:
+		while (match.find())
+		{
+			String script = match.group(1);
+			for (String skip : SKIP)
+				if (script.contains(skip))
+					continue examples;
+			scripts.add(script);
+		}
+		return scripts;
+	}
+	
+	private static String run(String script) throws Exception
+	{
+		StringBuilder out = new StringBuilder();
+		Scajl scajl = new Scajl(script);
+		scajl.setPrintCallback((str) -> out.append(str).append('\n'));
+		scajl.setParseExceptionCallback((e, str) -> out.append("Parse exception: ").append(str).append('\n'));
+		scajl.setExceptionCallback((e) -> out.append("Exception: ").append(e).append('\n'));
+		scajl.run();
+		return out.toString();
+	}
+}
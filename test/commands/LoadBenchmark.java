@@ -0,0 +1,98 @@
+/**
+ * This file is part of Scajl, which is a scripting language for Java applications.
+ * Copyright (c) 2023, SerpentDagger (MRRH) <serpentdagger.contact@gmail.com>.
+ * 
+ * Scajl is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * Scajl is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with Scajl.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package commands;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Random;
+
+// Times loading generated scripts of a quarter, half and all of the given number of entries, which should grow linearly.
+// The scripts mix Labels, comments, anonymous scopes, '+' continued lines, '<<' '>>' multiline spans and blank lines.
+// Usage: LoadBenchmark [entries]
+public class LoadBenchmark
+{
+	public static void main(String[] args) throws Exception
+	{
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int[] sizes = { lines / 4, lines / 2, lines };
+		long[] times = new long[sizes.length];
+		
+		File[] scripts = new File[sizes.length];
+		for (int i = 0; i < sizes.length; i++)
+		{
+			scripts[i] = File.createTempFile("load", Scajl.SCRIPT_EXT);
+			scripts[i].deleteOnExit();
+			generate(scripts[i], sizes[i]);
+		}
+		// Every size is loaded once first, so that none of the timings include warming up.
+		for (File script : scripts)
+			new Scajl(script);
+		for (int i = 0; i < sizes.length; i++)
+		{
+			long start = System.nanoTime();
+			Scajl loaded = new Scajl(scripts[i]);
+			times[i] = System.nanoTime() - start;
+			System.out.println(sizes[i] + " generated entries (" + loaded.lines.length + " lines): " + times[i] / 1000000 + "ms");
+		}
+		System.out.printf("Time ratio for 4x the lines: %.1f (linear is 4)%n", (double) times[2] / times[0]);
+	}
+	
+	private static void generate(File script, int lines) throws Exception
+	{
+		Random rand = new Random(1);
+		try (PrintWriter out = new PrintWriter(script))
+		{
+			for (int i = 0; i < lines; i++)
+			{
+				switch (rand.nextInt(9))
+				{
+					case 0:
+						out.println("--L" + i);
+						out.println("print 1");
+						out.println("return");
+						break;
+					case 1:
+						out.println("var x" + i + " " + i + " // comment");
+						break;
+					case 2:
+						out.println("{");
+						out.println("print \"a<<b\" << hid >> , 1");
+						out.println("}");
+						break;
+					case 3:
+						out.println("add 1,");
+						out.println("+ 2,");
+						out.println("+");
+						out.println("+3");
+						break;
+					case 4:
+						out.print("print \"x\"\r\n");
+						break;
+					case 5:
+						out.println("<< multi");
+						out.println("line >> print 5");
+						break;
+					case 6:
+						out.println();
+						break;
+					default:
+						out.println("var y [1; 2; (3 4)]   ");
+				}
+			}
+		}
+	}
+}